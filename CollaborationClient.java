@@ -0,0 +1,304 @@
+package draw;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+// 함께 그리기 서버에 연결된 그림판
+// 내가 그린 작업은 한 프레임 동안 모아서 보냄 (보내는 스레드)
+//
+// 그림이 모두 같아지도록 서버가 정한 순번대로 그림:
+//   받는 스레드는 서버가 보낸 작업을 (내 작업도) 순번대로 confirmed 그림에 그리고,
+//   EDT는 바뀐 영역을 confirmed에서 복사한 뒤 아직 서버가 돌려주지 않은 내 작업만 그 위에 다시 그림
+//   내 작업은 그리자마자 보이지만, 서버가 돌려주면 그 영역도 confirmed로 바뀌므로
+//   겹치는 곳에 다른 사람이 먼저 그렸으면 순번대로 다시 정리됨
+// confirmed는 서버가 정한 크기로 한 번만 만듦 (받은 좌표로 늘리지 않음)
+final class CollaborationClient implements DrawingPanel.OperationListener, Closeable {
+    // 접속 대기 시간 (밀리초)
+    private static final int CONNECT_TIMEOUT = 3000;
+
+    private final DrawingPanel panel;
+    private final SocketChannel channel;
+    // 서버가 정해 준 내 번호
+    private final int clientId;
+    // 보낼 작업들
+    private final BlockingQueue<DrawingOperation> outgoing = new LinkedBlockingQueue<>();
+    private final Thread sender;
+    private final Thread receiver;
+    // 연결이 끊겼을 때 EDT에서 실행 (close로 직접 끊었을 때는 실행하지 않음)
+    private final Runnable onDisconnect;
+    // 다음에 받을 작업 순번
+    private int nextSequence;
+    private volatile boolean closed;
+
+    // 아래는 lock으로 보호 (받는 스레드와 EDT가 같이 씀)
+    private final Object lock = new Object();
+    // 서버가 보낸 작업을 순번대로 모두 그린 그림 (서버가 정한 크기)
+    private final BufferedImage confirmed;
+    private final Graphics2D confirmedGraphics;
+    // 서버가 돌려준 내 작업 수
+    private int echoedOwn;
+    // EDT에서 confirmed로 바꿀 영역 (없으면 null, 있으면 applyConfirmed가 예약돼 있음)
+    private Rectangle pendingRegion;
+
+    // 아래는 EDT에서만 씀
+    // 보냈지만 아직 서버가 돌려주지 않은 내 작업 (보낸 순서)
+    private final ArrayDeque<DrawingOperation> unconfirmed = new ArrayDeque<>();
+    // unconfirmed에서 뺀 내 작업 수
+    private int appliedOwn;
+
+    private CollaborationClient(DrawingPanel panel, SocketChannel channel, int clientId, int firstSequence,
+                                int width, int height, Runnable onDisconnect) {
+        this.panel = panel;
+        this.channel = channel;
+        this.clientId = clientId;
+        this.nextSequence = firstSequence;
+        this.onDisconnect = onDisconnect;
+        // 모두 같은 흰 그림에서 시작 (그림판은 적어도 서버 그림 크기로 늘림)
+        panel.startCollaboration(width, height);
+        confirmed = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        confirmedGraphics = confirmed.createGraphics();
+        confirmedGraphics.setColor(Color.WHITE);
+        confirmedGraphics.fillRect(0, 0, width, height);
+        // 그림판과 같은 설정으로 그림 (모두 지우기가 그림 전체를 칠하도록 클립은 그림 크기)
+        DrawingPanel.applyRenderingHints(confirmedGraphics);
+        confirmedGraphics.setClip(0, 0, width, height);
+        sender = new Thread(this::sendLoop, "collaboration-sender");
+        receiver = new Thread(this::receiveLoop, "collaboration-receiver");
+        sender.setDaemon(true);
+        receiver.setDaemon(true);
+    }
+
+    // 서버에 접속해서 그림 패널을 연결 (EDT에서 호출)
+    static CollaborationClient connect(String host, int port, DrawingPanel panel, Runnable onDisconnect)
+            throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.socket().connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ByteBuffer welcome = CollaborationProtocol.readMessage(channel);
+            if (welcome.get() != CollaborationProtocol.WELCOME) {
+                throw new IOException("함께 그리기 서버가 아닙니다");
+            }
+            int clientId = welcome.getShort() & 0xFFFF;
+            int firstSequence = welcome.getInt();
+            int width = welcome.getShort() & 0xFFFF;
+            int height = welcome.getShort() & 0xFFFF;
+            if (width < 1 || height < 1 || width > CollaborationProtocol.MAX_SIZE
+                    || height > CollaborationProtocol.MAX_SIZE) {
+                throw new IOException("서버 그림 크기가 잘못되었습니다: " + width + "x" + height);
+            }
+
+            CollaborationClient client = new CollaborationClient(panel, channel, clientId, firstSequence,
+                    width, height, onDisconnect);
+            panel.addOperationListener(client);
+            client.sender.start();
+            client.receiver.start();
+            return client;
+        } catch (IOException | BufferUnderflowException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("잘못된 서버 응답", e);
+        }
+    }
+
+    DrawingPanel getPanel() {
+        return panel;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void operationDrawn(DrawingOperation operation) {
+        unconfirmed.add(operation);
+        outgoing.add(operation);
+    }
+
+    // 연결 끊기 (EDT에서 호출)
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        detach();
+        stop();
+    }
+
+    private void detach() {
+        panel.removeOperationListener(this);
+        panel.stopCollaboration();
+    }
+
+    private void stop() {
+        sender.interrupt();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // 이미 닫혔으면 더 할 일 없음
+        }
+    }
+
+    // 서버 쪽에서 끊겼을 때
+    private void connectionLost() {
+        if (closed) return;
+        closed = true;
+        stop();
+        SwingUtilities.invokeLater(() -> {
+            detach();
+            onDisconnect.run();
+        });
+    }
+
+    // 첫 작업이 생기면 한 프레임 동안 더 모았다가 한 번에 보내기
+    private void sendLoop() {
+        try {
+            while (!closed) {
+                List<DrawingOperation> batch = new ArrayList<>();
+                batch.add(outgoing.take());
+                long deadline = System.nanoTime() + CollaborationProtocol.FRAME_MILLIS * 1_000_000L;
+                long remaining;
+                while ((remaining = deadline - System.nanoTime()) > 0) {
+                    DrawingOperation next = outgoing.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                send(batch);
+            }
+        } catch (InterruptedException e) {
+            // close로 끝냄
+        } catch (IOException e) {
+            connectionLost();
+        }
+    }
+
+    // OPERATIONS 메시지로 보내기 (한 메시지에 다 안 들어가면 나눠서)
+    private void send(List<DrawingOperation> batch) throws IOException {
+        int index = 0;
+        while (index < batch.size()) {
+            int end = index;
+            int size = 0;
+            while (end < batch.size() && end - index < 0xFFFF
+                    && size + batch.get(end).maxEncodedSize() <= CollaborationProtocol.MAX_MESSAGE - 3) {
+                size += batch.get(end).maxEncodedSize();
+                end++;
+            }
+            ByteBuffer message = ByteBuffer.allocate(CollaborationProtocol.HEADER_SIZE + 2 + size);
+            message.putInt(0);
+            message.put(CollaborationProtocol.OPERATIONS);
+            message.putShort((short) (end - index));
+            for (int i = index; i < end; i++) {
+                batch.get(i).write(message);
+            }
+            message.putInt(0, message.position() - 4);
+            message.flip();
+            CollaborationProtocol.writeFully(channel, message);
+            index = end;
+        }
+    }
+
+    // BROADCAST 메시지를 받아서 순번을 확인하고 confirmed에 그리기
+    private void receiveLoop() {
+        try {
+            while (!closed) {
+                ByteBuffer message = CollaborationProtocol.readMessage(channel);
+                byte type = message.get();
+                if (type == CollaborationProtocol.SNAPSHOT) {
+                    // 접속하기 전까지의 그림 (첫 BROADCAST보다 먼저 옴)
+                    Rectangle changed;
+                    synchronized (lock) {
+                        changed = CollaborationProtocol.readSnapshot(message, confirmed);
+                    }
+                    schedule(changed);
+                    continue;
+                }
+                if (type != CollaborationProtocol.BROADCAST) {
+                    throw new IOException("알 수 없는 메시지");
+                }
+                int firstSequence = message.getInt();
+                int count = message.getShort() & 0xFFFF;
+                // 순번이 빠지거나 겹치면 그림이 다른 사람과 달라지므로 연결을 끊음
+                if (firstSequence != nextSequence) {
+                    throw new IOException("작업 순번이 맞지 않습니다: " + nextSequence + " 대신 " + firstSequence);
+                }
+                nextSequence += count;
+
+                Rectangle changed = null;
+                synchronized (lock) {
+                    for (int i = 0; i < count; i++) {
+                        int author = message.getShort() & 0xFFFF;
+                        Rectangle bounds = drawConfirmed(DrawingOperation.read(message));
+                        // 내 작업도 서버 순번대로 다시 그려야 겹친 곳이 다른 그림판과 같아짐
+                        if (author == clientId) {
+                            echoedOwn++;
+                        }
+                        if (bounds != null) {
+                            changed = changed == null ? bounds : changed.union(bounds);
+                        }
+                    }
+                }
+                if (changed != null) {
+                    schedule(changed);
+                }
+            }
+        } catch (IOException | IllegalArgumentException | BufferUnderflowException e) {
+            connectionLost();
+        }
+    }
+
+    // confirmed에 작업 하나 그리기 (lock을 잡고 호출, 바뀐 영역을 돌려줌, 없으면 null)
+    private Rectangle drawConfirmed(DrawingOperation operation) {
+        Rectangle canvas = new Rectangle(0, 0, confirmed.getWidth(), confirmed.getHeight());
+        if (operation.isClear()) {
+            operation.draw(confirmedGraphics);
+            return canvas;
+        }
+        Rectangle drawn = operation.getBounds();
+        if (drawn == null) return null;
+        Rectangle bounds = drawn.intersection(canvas);
+        if (bounds.isEmpty()) return null;
+        operation.draw(confirmedGraphics);
+        return bounds;
+    }
+
+    // EDT에서 region을 confirmed로 바꾸도록 예약 (이미 예약돼 있으면 영역만 넓힘)
+    private void schedule(Rectangle region) {
+        boolean first;
+        synchronized (lock) {
+            first = pendingRegion == null;
+            pendingRegion = first ? region : pendingRegion.union(region);
+        }
+        if (first) {
+            SwingUtilities.invokeLater(this::applyConfirmed);
+        }
+    }
+
+    // 예약된 영역을 confirmed로 바꾸고 아직 돌아오지 않은 내 작업을 그 위에 다시 그림
+    private void applyConfirmed() {
+        synchronized (lock) {
+            Rectangle region = pendingRegion;
+            pendingRegion = null;
+            if (closed || region == null) return;
+            // 서버가 돌려준 내 작업은 이제 confirmed에 들어 있음
+            for (; appliedOwn < echoedOwn; appliedOwn++) {
+                unconfirmed.poll();
+            }
+            panel.replaceRegion(confirmed, region, unconfirmed);
+        }
+    }
+}
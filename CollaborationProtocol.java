@@ -0,0 +1,152 @@
+package draw;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// 함께 그리기 서버와 그림판이 주고받는 메시지 (모두 빅엔디안)
+//
+//   메시지: 길이(4, 종류부터 끝까지) 종류(1) 내용
+//   WELCOME    서버 -> 그림판  내 번호(2) 다음 순번(4) 그림 너비(2) 그림 높이(2)
+//   SNAPSHOT   서버 -> 그림판  첫 줄(2) 줄 수(2) 압축한 픽셀 (ARGB, Deflater)
+//   OPERATIONS 그림판 -> 서버  작업 수(2) 작업들
+//   BROADCAST  서버 -> 그림판  첫 순번(4) 작업 수(2) [그린 사람 번호(2) 작업]...
+//
+// 서버는 한 프레임(FRAME_MILLIS) 동안 받은 작업을 모아 순번을 붙여서 한 번에 모두에게 보냄
+// 순번은 빠짐없이 이어지므로 그림판은 모든 작업을 같은 순서로 그리게 됨
+// 그림 크기는 서버가 정하고, 모든 작업은 그 크기의 흰 그림 위에 그려짐
+// 나중에 들어온 그림판은 WELCOME 다음에 SNAPSHOT(다음 순번 바로 앞까지의 그림, 없을 수도 있음)과
+// 그 뒤의 BROADCAST들을 받음
+final class CollaborationProtocol {
+    static final int DEFAULT_PORT = 5555;
+
+    static final byte WELCOME = 1;
+    static final byte OPERATIONS = 2;
+    static final byte BROADCAST = 3;
+    static final byte SNAPSHOT = 4;
+
+    // 서버 그림 기본 크기와 최대 크기 (그림판마다 이 크기의 그림을 하나 더 가짐)
+    static final int DEFAULT_WIDTH = 1920;
+    static final int DEFAULT_HEIGHT = 1080;
+    static final int MAX_SIZE = 4096;
+    // SNAPSHOT 메시지 하나에 넣는 압축 전 최대 바이트 (압축해도 MAX_MESSAGE를 넘지 않도록)
+    private static final int SNAPSHOT_BAND_BYTES = 256 << 10;
+
+    // 작업을 모아서 보내는 간격 (밀리초, 화면 한 프레임)
+    static final int FRAME_MILLIS = 16;
+    // 메시지 하나의 최대 크기
+    static final int MAX_MESSAGE = 1 << 20;
+    // 메시지 머리 크기 (길이 + 종류)
+    static final int HEADER_SIZE = 5;
+
+    private CollaborationProtocol() {
+    }
+
+    // 메시지 하나를 끝까지 읽기 (블로킹 채널용, 돌려주는 버퍼는 종류부터 시작)
+    static ByteBuffer readMessage(ReadableByteChannel channel) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(channel, length);
+        int size = length.getInt(0);
+        if (size < 1 || size > MAX_MESSAGE) {
+            throw new IOException("잘못된 메시지 길이: " + size);
+        }
+        ByteBuffer message = ByteBuffer.allocate(size);
+        readFully(channel, message);
+        message.flip();
+        return message;
+    }
+
+    // 버퍼를 끝까지 쓰기 (블로킹 채널용)
+    static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // 그림을 줄 묶음으로 나눠 SNAPSHOT 메시지들로 만들기
+    static List<ByteBuffer> snapshotMessages(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int bandRows = Math.max(1, SNAPSHOT_BAND_BYTES / (width * 4));
+        List<ByteBuffer> messages = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            ByteBuffer raw = ByteBuffer.allocate(bandRows * width * 4);
+            for (int y = 0; y < height; y += bandRows) {
+                int rows = Math.min(bandRows, height - y);
+                int[] pixels = (int[]) image.getRaster().getDataElements(0, y, width, rows, null);
+                raw.clear();
+                raw.asIntBuffer().put(pixels);
+                raw.limit(pixels.length * 4);
+                deflater.reset();
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteBuffer compressed = ByteBuffer.allocate(MAX_MESSAGE - HEADER_SIZE - 4);
+                while (!deflater.finished()) {
+                    if (deflater.deflate(compressed) == 0 && !compressed.hasRemaining()) {
+                        throw new IllegalStateException("그림 조각이 메시지보다 큽니다");
+                    }
+                }
+                compressed.flip();
+                ByteBuffer message = ByteBuffer.allocate(HEADER_SIZE + 4 + compressed.remaining());
+                message.putInt(1 + 4 + compressed.remaining());
+                message.put(SNAPSHOT);
+                message.putShort((short) y);
+                message.putShort((short) rows);
+                message.put(compressed);
+                message.flip();
+                messages.add(message.asReadOnlyBuffer());
+            }
+        } finally {
+            deflater.end();
+        }
+        return messages;
+    }
+
+    // SNAPSHOT 메시지(종류 다음부터)를 image에 풀고 바뀐 영역을 돌려줌 (형식이 틀리면 IOException)
+    static Rectangle readSnapshot(ByteBuffer message, BufferedImage image) throws IOException {
+        int width = image.getWidth();
+        int y = message.getShort() & 0xFFFF;
+        int rows = message.getShort() & 0xFFFF;
+        if (rows == 0 || y + rows > image.getHeight()) {
+            throw new IOException("잘못된 그림 조각 위치");
+        }
+        ByteBuffer raw = ByteBuffer.allocate(rows * width * 4);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(message);
+            while (raw.hasRemaining()) {
+                if (inflater.inflate(raw) == 0 && (inflater.finished() || inflater.needsInput()
+                        || inflater.needsDictionary())) {
+                    throw new IOException("그림 조각이 잘렸습니다");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("그림 조각이 손상되었습니다", e);
+        } finally {
+            inflater.end();
+        }
+        raw.flip();
+        int[] pixels = new int[rows * width];
+        raw.asIntBuffer().get(pixels);
+        image.getRaster().setDataElements(0, y, width, rows, pixels);
+        return new Rectangle(0, y, width, rows);
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("연결이 끊겼습니다");
+            }
+        }
+    }
+}
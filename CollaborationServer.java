@@ -0,0 +1,352 @@
+package draw;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// 함께 그리기 서버
+// 스레드 하나가 셀렉터로 모든 연결을 논블로킹으로 처리함 (연결마다 스레드를 만들지 않음)
+// 받은 작업은 한 프레임 동안 모았다가 순번을 붙여 BROADCAST 메시지 하나로 만들고,
+// 그 메시지 하나를 모든 연결이 같이 씀 (연결마다 다시 인코딩하거나 복사하지 않음)
+// 서버도 받은 작업을 순번대로 자기 그림에 그려 두고, 보낸 기록이 MAX_HISTORY_BYTES를 넘으면
+// 기록 대신 그 그림(SNAPSHOT)을 나중에 들어온 그림판에 보냄
+//
+// 따로 실행: java -cp <클래스 경로> draw.CollaborationServer [포트] [너비 높이]
+// 그림판 안에서 실행하거나 테스트할 때는 start(0)으로 빈 포트에 열 수 있음
+public final class CollaborationServer implements Closeable {
+    // 느린 연결에 쌓아 둘 수 있는 최대 바이트 (넘으면 그 연결을 끊음)
+    private static final long MAX_QUEUED_BYTES = 64L << 20;
+    // 나중에 들어온 그림판에 다시 보낼 BROADCAST 기록의 최대 바이트 (넘으면 그림으로 바꿈)
+    private static final long MAX_HISTORY_BYTES = 4L << 20;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread thread;
+    // 모두가 그리는 그림 (받은 작업을 순번대로 그림, 서버 스레드에서만 씀)
+    private final BufferedImage canvas;
+    private final Graphics2D canvasGraphics;
+    private final List<Connection> connections = new ArrayList<>();
+    // history 첫 순번 바로 앞까지의 그림 (SNAPSHOT 메시지들, 흰 그림이면 비어 있음)
+    private List<ByteBuffer> snapshot = new ArrayList<>();
+    // snapshot 뒤로 보낸 BROADCAST 메시지들 (나중에 들어온 그림판에 snapshot과 함께 보냄)
+    // 모두 지우기 앞의 작업은 그림에 남지 않으므로 모두 지우기가 오면 snapshot과 함께 비움
+    private final List<ByteBuffer> history = new ArrayList<>();
+    private long historyBytes;
+    // history의 첫 작업 순번
+    private int historySequence = 1;
+    // 이번 프레임에 모은 작업들 ([그린 사람 번호(2) 작업]...)
+    private final ByteBuffer pending = ByteBuffer.allocate(CollaborationProtocol.MAX_MESSAGE
+            - CollaborationProtocol.HEADER_SIZE - 6);
+    private int pendingCount;
+    // 모은 작업을 보낼 시각 (System.nanoTime 기준)
+    private long flushTime;
+    private int nextSequence = 1;
+    private int nextClientId = 1;
+    private volatile boolean closed;
+
+    // 연결된 그림판 하나
+    private static final class Connection {
+        final SocketChannel channel;
+        final int id;
+        final SelectionKey key;
+        // 받는 중인 메시지 (메시지가 크면 늘어남)
+        ByteBuffer in = ByteBuffer.allocate(4096);
+        // 보낼 메시지들 (BROADCAST는 모든 연결이 같은 내용을 가리킴)
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        long queuedBytes;
+        // queuedBytes 중 접속할 때 받은 WELCOME, snapshot, history (아직 보내지 못한 만큼, 느린 연결 검사에서 뺌)
+        long historyBytes;
+
+        Connection(SocketChannel channel, int id, Selector selector) throws IOException {
+            this.channel = channel;
+            this.id = id;
+            this.key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+    }
+
+    private CollaborationServer(int port, int width, int height) throws IOException {
+        canvas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        canvasGraphics = canvas.createGraphics();
+        canvasGraphics.setColor(Color.WHITE);
+        canvasGraphics.fillRect(0, 0, width, height);
+        // 그림판과 같은 설정으로 그림 (모두 지우기가 그림 전체를 칠하도록 클립은 그림 크기)
+        DrawingPanel.applyRenderingHints(canvasGraphics);
+        canvasGraphics.setClip(0, 0, width, height);
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::run, "collaboration-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 서버 열기 (port가 0이면 빈 포트 아무거나, 그림은 기본 크기)
+    static CollaborationServer start(int port) throws IOException {
+        return start(port, CollaborationProtocol.DEFAULT_WIDTH, CollaborationProtocol.DEFAULT_HEIGHT);
+    }
+
+    static CollaborationServer start(int port, int width, int height) throws IOException {
+        if (width < 1 || height < 1 || width > CollaborationProtocol.MAX_SIZE || height > CollaborationProtocol.MAX_SIZE) {
+            throw new IllegalArgumentException("그림 크기는 1에서 " + CollaborationProtocol.MAX_SIZE + " 사이여야 합니다");
+        }
+        return new CollaborationServer(port, width, height);
+    }
+
+    int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                // 모아 둔 작업이 있으면 프레임이 끝날 때까지만 기다림
+                long timeout = 0;
+                if (pendingCount > 0) {
+                    timeout = Math.max(1, (flushTime - System.nanoTime()) / 1_000_000);
+                }
+                selector.select(timeout);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid() && key.isAcceptable()) {
+                        try {
+                            accept();
+                        } catch (IOException e) {
+                            // 받지 못한 연결은 버리고 계속 서버를 돌림
+                        }
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(connection);
+                        }
+                    } catch (IOException | IllegalArgumentException | BufferUnderflowException e) {
+                        // 연결이 끊겼거나 잘못된 데이터를 보낸 그림판은 내보냄
+                        disconnect(connection);
+                    }
+                }
+
+                if (pendingCount > 0 && System.nanoTime() - flushTime >= 0) {
+                    flush();
+                }
+            }
+        } catch (IOException e) {
+            // 셀렉터를 더 쓸 수 없으면 서버를 닫음 (연결은 아래에서 모두 끊음)
+            closed = true;
+        } finally {
+            for (Connection connection : new ArrayList<>(connections)) {
+                disconnect(connection);
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                // 닫는 중이므로 무시
+            }
+        }
+    }
+
+    // 새 그림판 연결 (번호와 그림 크기를 알려주고 지금까지의 그림과 작업을 보냄)
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel, nextClientId, selector);
+        nextClientId = nextClientId % 0xFFFF + 1;
+        connections.add(connection);
+
+        ByteBuffer welcome = ByteBuffer.allocate(CollaborationProtocol.HEADER_SIZE + 10);
+        welcome.putInt(1 + 10);
+        welcome.put(CollaborationProtocol.WELCOME);
+        welcome.putShort((short) connection.id);
+        welcome.putInt(historySequence);
+        welcome.putShort((short) canvas.getWidth());
+        welcome.putShort((short) canvas.getHeight());
+        welcome.flip();
+        connection.historyBytes = welcome.remaining();
+        queue(connection, welcome);
+        for (ByteBuffer message : snapshot) {
+            queue(connection, message.duplicate());
+            connection.historyBytes += message.remaining();
+        }
+        for (ByteBuffer message : history) {
+            queue(connection, message.duplicate());
+            connection.historyBytes += message.remaining();
+        }
+    }
+
+    // 받은 만큼 메시지로 나눠서 처리 (메시지가 다 오지 않았으면 다음에)
+    private void read(Connection connection) throws IOException {
+        if (connection.channel.read(connection.in) < 0) {
+            disconnect(connection);
+            return;
+        }
+        ByteBuffer in = connection.in;
+        in.flip();
+        while (in.remaining() >= 4) {
+            int size = in.getInt(in.position());
+            if (size < 1 || size > CollaborationProtocol.MAX_MESSAGE) {
+                throw new IOException("잘못된 메시지 길이: " + size);
+            }
+            if (in.remaining() < 4 + size) break;
+            ByteBuffer message = in.slice(in.position() + 4, size);
+            in.position(in.position() + 4 + size);
+            receive(connection, message);
+        }
+        in.compact();
+
+        // 다음 메시지가 버퍼보다 크면 버퍼 늘리기
+        if (in.position() >= 4 && in.getInt(0) + 4 > in.capacity()) {
+            ByteBuffer larger = ByteBuffer.allocate(in.getInt(0) + 4);
+            in.flip();
+            larger.put(in);
+            connection.in = larger;
+        }
+    }
+
+    // OPERATIONS 메시지의 작업들을 이번 프레임에 모으기
+    private void receive(Connection connection, ByteBuffer message) throws IOException {
+        if (message.get() != CollaborationProtocol.OPERATIONS) {
+            throw new IOException("알 수 없는 메시지");
+        }
+        int count = message.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            // 읽으면서 형식을 확인하고, 받은 바이트를 그대로 다시 보냄
+            int start = message.position();
+            DrawingOperation operation = DrawingOperation.read(message);
+            int length = message.position() - start;
+            if (operation.isClear()) {
+                // 앞의 작업은 먼저 보내고, 모두 지우기부터 history를 새로 시작
+                if (pendingCount > 0) {
+                    flush();
+                }
+                snapshot = new ArrayList<>();
+                history.clear();
+                historyBytes = 0;
+                historySequence = nextSequence;
+            }
+            if (2 + length > pending.capacity()) {
+                throw new IOException("작업이 너무 큽니다");
+            }
+            if (pending.remaining() < 2 + length || pendingCount == 0xFFFF) {
+                flush();
+            }
+            if (pendingCount == 0) {
+                flushTime = System.nanoTime() + CollaborationProtocol.FRAME_MILLIS * 1_000_000L;
+            }
+            // 순번 순서대로 서버 그림에도 그림
+            operation.draw(canvasGraphics);
+            pending.putShort((short) connection.id);
+            pending.put(message.slice(start, length));
+            pendingCount++;
+        }
+    }
+
+    // 모은 작업에 순번을 붙여 모두에게 보내기
+    private void flush() {
+        ByteBuffer message = ByteBuffer.allocate(CollaborationProtocol.HEADER_SIZE + 6 + pending.position());
+        message.putInt(1 + 6 + pending.position());
+        message.put(CollaborationProtocol.BROADCAST);
+        message.putInt(nextSequence);
+        message.putShort((short) pendingCount);
+        pending.flip();
+        message.put(pending);
+        pending.clear();
+        message.flip();
+        nextSequence += pendingCount;
+        pendingCount = 0;
+
+        ByteBuffer shared = message.asReadOnlyBuffer();
+        history.add(shared);
+        historyBytes += shared.remaining();
+        if (historyBytes > MAX_HISTORY_BYTES) {
+            // 모은 작업은 모두 서버 그림에 그려져 있으므로 기록 대신 그림을 보내도 같음
+            snapshot = CollaborationProtocol.snapshotMessages(canvas);
+            history.clear();
+            historyBytes = 0;
+            historySequence = nextSequence;
+        }
+        for (Connection connection : new ArrayList<>(connections)) {
+            if (connection.queuedBytes - connection.historyBytes > MAX_QUEUED_BYTES) {
+                // 너무 느려서 따라오지 못하는 그림판
+                disconnect(connection);
+                continue;
+            }
+            queue(connection, shared.duplicate());
+        }
+    }
+
+    private void queue(Connection connection, ByteBuffer message) {
+        connection.out.add(message);
+        connection.queuedBytes += message.remaining();
+        connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    // 소켓 버퍼가 찰 때까지 보내기 (다 보내면 쓰기 대기를 끔)
+    private void write(Connection connection) throws IOException {
+        while (!connection.out.isEmpty()) {
+            ByteBuffer message = connection.out.peek();
+            int written = connection.channel.write(message);
+            connection.queuedBytes -= written;
+            // WELCOME과 history를 먼저 넣었으므로 먼저 보낸 바이트는 그것들
+            connection.historyBytes -= Math.min(written, connection.historyBytes);
+            if (message.hasRemaining()) return;
+            connection.out.poll();
+        }
+        connection.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void disconnect(Connection connection) {
+        connections.remove(connection);
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // 이미 끊긴 연결
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : CollaborationProtocol.DEFAULT_PORT;
+        int width = args.length > 2 ? Integer.parseInt(args[1]) : CollaborationProtocol.DEFAULT_WIDTH;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : CollaborationProtocol.DEFAULT_HEIGHT;
+        CollaborationServer server = start(port, width, height);
+        System.out.println("함께 그리기 서버 시작: 포트 " + server.getPort() + ", 그림 " + width + "x" + height);
+        // Ctrl+C로 끝낼 때까지 실행
+        server.thread.join();
+    }
+}
@@ -0,0 +1,220 @@
+package draw;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// 그림 작업 하나 (자유 곡선, 직선, 사각형, 원, 모두 지우기)
+// 함께 그리기에서 픽셀 대신 이것을 주고받음
+//
+// 바이너리 형식
+//   종류(1) 색상 ARGB(4) 선 두께(가변) 점 개수(가변) 점들(가변)
+//   점은 앞 점과의 차이를 지그재그 가변 길이 정수로 씀 (보통 한 좌표에 1바이트)
+final class DrawingOperation {
+    static final byte STROKE = 1;
+    static final byte LINE = 2;
+    static final byte RECTANGLE = 3;
+    static final byte OVAL = 4;
+    static final byte CLEAR = 5;
+
+    // 한 작업의 최대 점 개수 (잘못된 데이터로 큰 배열을 만들지 않도록)
+    static final int MAX_POINTS = 1 << 16;
+
+    private final byte type;
+    private final int argb;
+    private final int strokeSize;
+    // x0, y0, x1, y1, ... 순서
+    private final int[] coords;
+
+    private DrawingOperation(byte type, int argb, int strokeSize, int[] coords) {
+        this.type = type;
+        this.argb = argb;
+        this.strokeSize = strokeSize;
+        this.coords = coords;
+    }
+
+    // 자유 곡선 (연필, 지우개)
+    // 점이 MAX_POINTS보다 많으면 끝점을 하나씩 겹쳐서 여러 작업으로 나눔 (자르지 않음)
+    static List<DrawingOperation> strokes(Color color, int strokeSize, List<Point> points) {
+        List<DrawingOperation> strokes = new ArrayList<>();
+        int start = 0;
+        do {
+            int count = Math.min(points.size() - start, MAX_POINTS);
+            int[] coords = new int[count * 2];
+            for (int i = 0; i < count; i++) {
+                coords[i * 2] = points.get(start + i).x;
+                coords[i * 2 + 1] = points.get(start + i).y;
+            }
+            strokes.add(new DrawingOperation(STROKE, color.getRGB(), strokeSize, coords));
+            start += count - 1;
+        } while (start < points.size() - 1);
+        return strokes;
+    }
+
+    // 직선, 사각형, 원 (시작점과 끝점)
+    static DrawingOperation shape(MainFrame.DrawingTool tool, Color color, int strokeSize, Point start, Point end) {
+        byte type;
+        switch (tool) {
+            case LINE:
+                type = LINE;
+                break;
+            case RECTANGLE:
+                type = RECTANGLE;
+                break;
+            case OVAL:
+                type = OVAL;
+                break;
+            default:
+                throw new IllegalArgumentException("도형 도구가 아닙니다: " + tool);
+        }
+        return new DrawingOperation(type, color.getRGB(), strokeSize, new int[] {start.x, start.y, end.x, end.y});
+    }
+
+    // 모두 지우기
+    static DrawingOperation clear() {
+        return new DrawingOperation(CLEAR, Color.WHITE.getRGB(), 0, new int[0]);
+    }
+
+    boolean isClear() {
+        return type == CLEAR;
+    }
+
+    // 이 작업이 그리는 영역 (선 두께와 안티앨리어싱만큼 넉넉하게, 모두 지우기는 null)
+    Rectangle getBounds() {
+        if (type == CLEAR || coords.length == 0) return null;
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < coords.length; i += 2) {
+            minX = Math.min(minX, coords[i]);
+            minY = Math.min(minY, coords[i + 1]);
+            maxX = Math.max(maxX, coords[i]);
+            maxY = Math.max(maxY, coords[i + 1]);
+        }
+        Rectangle bounds = new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+        bounds.grow(strokeSize + 1, strokeSize + 1);
+        return bounds;
+    }
+
+    // 그리기 (그림판도 보낼 곡선은 손을 뗄 때 이 방법으로 다시 그림, 모두 지우기는 g의 클립 영역을 흰색으로 칠함)
+    void draw(Graphics2D g) {
+        g.setColor(new Color(argb, true));
+        g.setStroke(new BasicStroke(strokeSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        if (type == CLEAR) {
+            Rectangle clip = g.getClipBounds();
+            if (clip != null) {
+                g.fill(clip);
+            }
+            return;
+        }
+        if (coords.length == 0) return;
+        int x0 = coords[0], y0 = coords[1];
+        switch (type) {
+            case STROKE:
+                // 그림판에서 손을 뗐을 때처럼 시작점에 점 찍고 경로를 한 번에 그림
+                g.fillOval(x0 - strokeSize / 2, y0 - strokeSize / 2, strokeSize, strokeSize);
+                if (coords.length == 4) {
+                    g.drawLine(x0, y0, coords[2], coords[3]);
+                } else if (coords.length > 4) {
+                    List<Point> points = new ArrayList<>(coords.length / 2);
+                    for (int i = 0; i < coords.length; i += 2) {
+                        points.add(new Point(coords[i], coords[i + 1]));
+                    }
+                    g.draw(DrawingPanel.smoothPath(points));
+                }
+                break;
+            case LINE:
+                g.drawLine(x0, y0, coords[2], coords[3]);
+                break;
+            case RECTANGLE:
+                g.drawRect(Math.min(x0, coords[2]), Math.min(y0, coords[3]),
+                        Math.abs(x0 - coords[2]), Math.abs(y0 - coords[3]));
+                break;
+            case OVAL:
+                g.drawOval(Math.min(x0, coords[2]), Math.min(y0, coords[3]),
+                        Math.abs(x0 - coords[2]), Math.abs(y0 - coords[3]));
+                break;
+        }
+    }
+
+    // 인코딩했을 때의 최대 바이트 수
+    int maxEncodedSize() {
+        return 1 + 4 + 5 + 5 + coords.length * 5;
+    }
+
+    // 바이너리로 쓰기
+    void write(ByteBuffer out) {
+        out.put(type);
+        out.putInt(argb);
+        writeVarInt(out, strokeSize);
+        writeVarInt(out, coords.length / 2);
+        int previousX = 0, previousY = 0;
+        for (int i = 0; i < coords.length; i += 2) {
+            writeVarInt(out, zigzag(coords[i] - previousX));
+            writeVarInt(out, zigzag(coords[i + 1] - previousY));
+            previousX = coords[i];
+            previousY = coords[i + 1];
+        }
+    }
+
+    // 바이너리에서 읽기 (형식이 틀리면 IllegalArgumentException)
+    static DrawingOperation read(ByteBuffer in) {
+        try {
+            byte type = in.get();
+            if (type < STROKE || type > CLEAR) {
+                throw new IllegalArgumentException("알 수 없는 작업 종류: " + type);
+            }
+            int argb = in.getInt();
+            int strokeSize = readVarInt(in);
+            int count = readVarInt(in);
+            if (strokeSize < 0 || strokeSize > 255 || count < 0 || count > MAX_POINTS
+                    || (type != STROKE && type != CLEAR && count != 2)) {
+                throw new IllegalArgumentException("잘못된 작업 데이터");
+            }
+            int[] coords = new int[count * 2];
+            int previousX = 0, previousY = 0;
+            for (int i = 0; i < coords.length; i += 2) {
+                previousX += unzigzag(readVarInt(in));
+                previousY += unzigzag(readVarInt(in));
+                coords[i] = previousX;
+                coords[i + 1] = previousY;
+            }
+            return new DrawingOperation(type, argb, strokeSize, coords);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("작업 데이터가 잘렸습니다", e);
+        }
+    }
+
+    // 7비트씩 나눠 쓰는 가변 길이 정수 (작은 수는 1바이트)
+    private static void writeVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("가변 길이 정수가 너무 깁니다");
+    }
+
+    // 음수도 작은 수로 (0, -1, 1, -2, ... -> 0, 1, 2, 3, ...)
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
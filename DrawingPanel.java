@@ -5,10 +5,15 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
-class DrawingPanel extends JPanel {
+class DrawingPanel extends JPanel implements Scrollable {
     // 그림이 그려질 이미지
     private BufferedImage drawImage;
     // 그래픽스 객체 (그림 그리는 도구)
@@ -37,6 +42,72 @@ class DrawingPanel extends JPanel {
     // 실행 취소/다시 실행을 위한 스택
     private Stack<BufferedImage> undoStack = new Stack<>();  // 실행 취소용 스택
     private Stack<BufferedImage> redoStack = new Stack<>();  // 다시 실행용 스택
+    // 실행 취소 기록마다 그때 아직 읽지 않은 문서 타일 (되돌리면 그 타일은 다시 문서에서 읽음, 없으면 null)
+    // 디스크로 내보낼 때도 그대로 메모리에 둠 (작음)
+    private Stack<TileState> undoTiles = new Stack<>();
+    private Stack<TileState> redoTiles = new Stack<>();
+    
+    // 선택 영역 (없으면 null)
+    private Rectangle selection;
+    // 떠 있는 선택 영역의 픽셀 (옮기는 중이거나 붙여넣은 것, 없으면 null)
+    private PixelRegion floating;
+    // 선택 영역을 끌 때 마우스와 왼쪽 위 모서리 사이의 거리
+    private Point dragOffset;
+    // 클립보드 (모든 그림 패널이 같이 씀)
+    private static PixelRegion clipboard;
+    
+    // 그림이 바뀔 때 알림 받는 리스너들
+    private ArrayList<CanvasListener> canvasListeners = new ArrayList<>();
+    // 이번 작업에서 바뀐 영역 (작업이 끝나면 리스너에게 알려주고 비움)
+    private Rectangle dirtyRegion;
+    
+    // 그림이 바뀐 영역을 알려주는 리스너
+    interface CanvasListener {
+        // 작업 하나가 끝날 때마다 호출됨 (EDT에서 호출되므로 픽셀은 여기서 바로 복사해야 함)
+        void canvasChanged(BufferedImage image, Rectangle dirty);
+    }
+    
+    // 그리기 작업(곡선, 도형, 모두 지우기)이 끝날 때마다 알림 받는 리스너들 (함께 그리기용)
+    private ArrayList<OperationListener> operationListeners = new ArrayList<>();
+    
+    // 사용자가 그린 작업을 알려주는 리스너
+    interface OperationListener {
+        // EDT에서 호출됨
+        void operationDrawn(DrawingOperation operation);
+    }
+    
+    // 열어 둔 그림판 문서 (아직 그림에 읽어 오지 않은 타일이 있을 때만, 다 읽으면 null)
+    private TiledDocument document;
+    // 문서 타일마다 그림에 읽어 왔는지 (줄 순서)
+    private boolean[] loadedTiles;
+    
+    // 문서와 그 타일을 그림에 읽어 왔는지
+    private static final class TileState {
+        final TiledDocument document;
+        final boolean[] loaded;
+
+        TileState(TiledDocument document, boolean[] loaded) {
+            this.document = document;
+            this.loaded = loaded;
+        }
+    }
+    
+    // 메모리가 부족해서 디스크로 내보낸 그림 파일들 (그림, 실행 취소, 다시 실행 순서, 내보내지 않았으면 null)
+    private ArrayList<File> swapFiles;
+    // 내보낸 실행 취소 기록 수
+    private int swappedUndoCount;
+    // 다시 불러오지 못한 것을 이미 알렸는지 (그릴 때마다 알리지 않도록)
+    private boolean swapInFailed;
+    
+    // 함께 그리기 중인지 (다른 사람에게 전달되지 않는 실행 취소, 필터, 붙여넣기 등은 막음)
+    private boolean collaborating;
+    
+    // 처음 화면에 그려졌을 때 한 번 실행할 작업 (시작 시간 측정용, 없으면 null)
+    private static Runnable firstPaintHook;
+    
+    // 선택 영역 테두리 (점선)
+    private static final Stroke SELECTION_STROKE = new BasicStroke(1, BasicStroke.CAP_BUTT,
+            BasicStroke.JOIN_MITER, 10, new float[] {4, 4}, 0);
     
     // 그림의 최대 기록 수
     private static final int MAX_UNDO = 20;
@@ -54,11 +125,22 @@ class DrawingPanel extends JPanel {
         MouseAdapter mouseAdapter = new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                // 마우스 버튼을 눌렀을 때
+                // 마우스 버튼을 눌렀을 때 (그림을 다시 불러오지 못하면 그리지 않음)
+                if (!tryEnsureImage()) return;
+                // 함께 그리기 중에는 선택과 글자 도구를 쓰지 않음 (다른 사람에게 전달되지 않음)
+                if (collaborating && (currentTool == MainFrame.DrawingTool.SELECT
+                        || currentTool == MainFrame.DrawingTool.TEXT)) {
+                    return;
+                }
                 startPoint = e.getPoint();  // 시작점 저장
                 isDrawing = true;           // 그리기 상태 시작
                 freehandPoints.clear();     // 포인트 리스트 초기화
                 
+                if (currentTool == MainFrame.DrawingTool.SELECT) {
+                    selectPressed(startPoint);
+                    return;
+                }
+                
                 if (currentTool == MainFrame.DrawingTool.PENCIL || 
                     currentTool == MainFrame.DrawingTool.ERASER) {
                     // 새로운 경로 시작
@@ -67,6 +149,7 @@ class DrawingPanel extends JPanel {
                     
                     freehandPoints.add(startPoint);
                     saveForUndo();  // 현재 상태 저장
+                    loadTiles(strokeBounds(startPoint, startPoint));
                     
                     // 지우개면 흰색, 아니면 선택된 색상
                     if (currentTool == MainFrame.DrawingTool.ERASER) {
@@ -87,7 +170,13 @@ class DrawingPanel extends JPanel {
                         g2d.setColor(color);
                         // 글꼴 설정 (선 두께에 비례한 크기)
                         g2d.setFont(new Font("맑은 고딕", Font.PLAIN, strokeSize * 5));
+                        // 글자가 차지하는 영역
+                        Rectangle textBounds = g2d.getFontMetrics().getStringBounds(text, g2d).getBounds();
+                        textBounds.translate(startPoint.x, startPoint.y);
+                        loadTiles(textBounds);
                         g2d.drawString(text, startPoint.x, startPoint.y);
+                        markDirty(textBounds);
+                        fireCanvasChanged();
                         repaint();
                     }
                     isDrawing = false;
@@ -101,6 +190,11 @@ class DrawingPanel extends JPanel {
                 
                 endPoint = e.getPoint();  // 현재 위치 저장
                 
+                if (currentTool == MainFrame.DrawingTool.SELECT) {
+                    selectDragged(endPoint);
+                    return;
+                }
+                
                 if (currentTool == MainFrame.DrawingTool.PENCIL || 
                     currentTool == MainFrame.DrawingTool.ERASER) {
                     // 자유 곡선 그리기
@@ -113,6 +207,9 @@ class DrawingPanel extends JPanel {
                     }
                     
                     freehandPoints.add(endPoint);
+                    // 새로 그려질 곳의 문서 타일을 먼저 읽음 (나중에 읽은 타일이 덮어쓰지 않도록)
+                    loadTiles(strokeBounds(freehandPoints.size() >= 3
+                            ? freehandPoints.get(freehandPoints.size() - 3) : lastPoint, endPoint));
                     
                     // 지우개면 흰색, 아니면 선택된 색상
                     if (currentTool == MainFrame.DrawingTool.ERASER) {
@@ -147,10 +244,17 @@ class DrawingPanel extends JPanel {
                 
                 endPoint = e.getPoint();
                 
+                if (currentTool == MainFrame.DrawingTool.SELECT) {
+                    selectReleased();
+                    isDrawing = false;
+                    return;
+                }
+                
                 if (currentTool == MainFrame.DrawingTool.PENCIL || 
                     currentTool == MainFrame.DrawingTool.ERASER) {
                     // 마지막 점 추가
                     if (!freehandPoints.isEmpty() && !endPoint.equals(freehandPoints.get(freehandPoints.size() - 1))) {
+                        loadTiles(strokeBounds(freehandPoints.get(Math.max(0, freehandPoints.size() - 2)), endPoint));
                         freehandPoints.add(endPoint);
                         
                         // 최종 경로 그리기
@@ -164,13 +268,27 @@ class DrawingPanel extends JPanel {
                             drawSmoothLine(g2d);
                         }
                     }
+                    markDirty(currentPath.getBounds());
+                    if (!operationListeners.isEmpty()) {
+                        Color strokeColor = currentTool == MainFrame.DrawingTool.ERASER ? Color.WHITE : color;
+                        List<DrawingOperation> strokes = DrawingOperation.strokes(strokeColor, strokeSize, freehandPoints);
+                        redrawStrokes(strokes);
+                        for (DrawingOperation stroke : strokes) {
+                            fireOperation(stroke);
+                        }
+                    }
                 } else if (currentTool != MainFrame.DrawingTool.TEXT) {
                     // 도형 그리기 (직선, 사각형, 원)
                     saveForUndo();
+                    loadTiles(strokeBounds(startPoint, endPoint));
                     draw();
+                    if (!operationListeners.isEmpty()) {
+                        fireOperation(DrawingOperation.shape(currentTool, color, strokeSize, startPoint, endPoint));
+                    }
                 }
                 
                 isDrawing = false;
+                fireCanvasChanged();
                 repaint();
             }
         };
@@ -179,8 +297,32 @@ class DrawingPanel extends JPanel {
         addMouseListener(mouseAdapter);
         addMouseMotionListener(mouseAdapter);
         
-        // 초기화
-        createDrawImage();
+        // 그림 이미지는 처음 화면에 그릴 때 실제 크기로 한 번만 만듦 (ensureImage)
+    }
+    
+    // 그림 이미지가 아직 없으면 만들기 (디스크로 내보냈으면 다시 불러오기)
+    private void ensureImage() {
+        swapIn();
+        if (drawImage == null) {
+            createDrawImage();
+            markDirty(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+            fireCanvasChanged();
+        }
+    }
+    
+    // 화면 그리기와 마우스 처리용 (디스크에서 다시 불러오지 못하면 한 번만 알리고 false)
+    private boolean tryEnsureImage() {
+        try {
+            ensureImage();
+            return true;
+        } catch (UncheckedIOException e) {
+            if (!swapInFailed) {
+                swapInFailed = true;
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                        e.getMessage() + ": " + e.getCause().getMessage(), "오류", JOptionPane.ERROR_MESSAGE));
+            }
+            return false;
+        }
     }
     
     // 그리기 이미지 생성
@@ -192,7 +334,7 @@ class DrawingPanel extends JPanel {
         // 그래픽스 객체 가져오기
         g2d = drawImage.createGraphics();
         // 부드러운 그리기 설정
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        applyRenderingHints(g2d);
         // 배경 흰색으로 칠하기
         g2d.setPaint(Color.WHITE);
         g2d.fillRect(0, 0, drawImage.getWidth(), drawImage.getHeight());
@@ -206,19 +348,90 @@ class DrawingPanel extends JPanel {
     
     // 그림 지우기
     public void clear() {
+        dropSelection();
         saveForUndo();
+        // 모두 지우므로 남은 타일은 읽을 필요 없음
+        document = null;
+        loadedTiles = null;
         // 흰색으로 모두 칠하기
         g2d.setPaint(Color.WHITE);
         g2d.fillRect(0, 0, drawImage.getWidth(), drawImage.getHeight());
         // 원래 색상으로 돌아가기
         g2d.setPaint(color);
+        markDirty(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+        fireCanvasChanged();
+        fireOperation(DrawingOperation.clear());
+        repaint();
+    }
+    
+    // 그림에 그릴 때 쓰는 설정
+    // 함께 그리기에서 받은 작업도 이 설정으로 그려야 직접 그린 것과 같은 모양이 됨
+    static void applyRenderingHints(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+    }
+    
+    // 함께 그리기 시작 (모두 같은 흰 그림에서 시작하도록 지움, 끝나면 실행 취소로 되돌릴 수 있음)
+    // 서버 그림(width x height) 전체에 그릴 수 있도록 그림을 적어도 그 크기로 늘림
+    void startCollaboration(int width, int height) {
+        ensureImage();
+        dropSelection();
+        saveForUndo();
+        if (width > drawImage.getWidth() || height > drawImage.getHeight()) {
+            growImage(width, height);
+            revalidate();
+        }
+        document = null;
+        loadedTiles = null;
+        g2d.setPaint(Color.WHITE);
+        g2d.fillRect(0, 0, drawImage.getWidth(), drawImage.getHeight());
+        g2d.setPaint(color);
+        collaborating = true;
+        markDirty(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+        fireCanvasChanged();
         repaint();
     }
     
+    void stopCollaboration() {
+        collaborating = false;
+    }
+    
+    // 함께 그리기: region을 서버 순서대로 그린 그림(confirmed)으로 바꾸고,
+    // 아직 서버가 돌려주지 않은 내 작업(unconfirmed)을 그 위에 다시 그림 (실행 취소 기록에는 넣지 않음)
+    void replaceRegion(BufferedImage confirmed, Rectangle region, Iterable<DrawingOperation> unconfirmed) {
+        ensureImage();
+        Rectangle bounds = region.intersection(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+        if (bounds.isEmpty()) return;
+        Rectangle copied = bounds.intersection(new Rectangle(0, 0, confirmed.getWidth(), confirmed.getHeight()));
+        // 서버 쪽 그림보다 큰 곳은 아무도 그리지 않은 곳
+        g2d.setPaint(Color.WHITE);
+        g2d.fill(bounds);
+        g2d.setPaint(color);
+        if (!copied.isEmpty()) {
+            drawImage.getRaster().setDataElements(copied.x, copied.y, copied.width, copied.height,
+                    confirmed.getRaster().getDataElements(copied.x, copied.y, copied.width, copied.height, null));
+        }
+        Graphics2D g = drawImage.createGraphics();
+        applyRenderingHints(g);
+        g.clip(bounds);
+        for (DrawingOperation operation : unconfirmed) {
+            operation.draw(g);
+        }
+        g.dispose();
+        markDirty(bounds);
+        fireCanvasChanged();
+        repaint(bounds);
+    }
+    
     // 도형 그리기 메소드
     private void draw() {
         if (startPoint == null || endPoint == null) return;
         
+        // 시작점과 끝점을 감싸는 영역이 바뀜
+        markDirty(new Rectangle(Math.min(startPoint.x, endPoint.x), Math.min(startPoint.y, endPoint.y),
+                Math.abs(startPoint.x - endPoint.x), Math.abs(startPoint.y - endPoint.y)));
+        
         // 색상과 선 설정
         g2d.setColor(color);
         g2d.setStroke(new BasicStroke(strokeSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
@@ -255,20 +468,61 @@ class DrawingPanel extends JPanel {
      */
     private void drawSmoothLine(Graphics2D g2d) {
         // 포인트가 3개 미만이면 그리지 않음
-        int numPoints = freehandPoints.size();
-        if (numPoints < 3) return;
+        if (freehandPoints.size() < 3) return;
+        
+        // 부드러운 곡선 그리기
+        Path2D smoothPath = smoothPath(freehandPoints);
+        g2d.draw(smoothPath);
+        
+        // 현재 패스 업데이트
+        currentPath = smoothPath;
+    }
+    
+    // 두 점 사이를 지금 선 두께로 그릴 때 바뀔 수 있는 영역
+    private Rectangle strokeBounds(Point a, Point b) {
+        Rectangle bounds = new Rectangle(Math.min(a.x, b.x), Math.min(a.y, b.y),
+                Math.abs(a.x - b.x) + 1, Math.abs(a.y - b.y) + 1);
+        bounds.grow(strokeSize + 1, strokeSize + 1);
+        return bounds;
+    }
+    
+    // 보낼 곡선을 받는 쪽과 같은 방법으로 다시 그리기
+    // 끄는 동안에는 점이 늘 때마다 겹쳐 그렸으므로, 누르기 전 그림(실행 취소 기록 맨 위)으로 되돌리고 한 번만 그림
+    private void redrawStrokes(List<DrawingOperation> strokes) {
+        Rectangle drawn = strokes.get(0).getBounds();
+        for (DrawingOperation stroke : strokes) {
+            drawn = drawn.union(stroke.getBounds());
+        }
+        Rectangle bounds = drawn.intersection(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+        if (bounds.isEmpty() || undoStack.isEmpty()) return;
+        BufferedImage before = undoStack.peek();
+        drawImage.getRaster().setDataElements(bounds.x, bounds.y, bounds.width, bounds.height,
+                before.getRaster().getDataElements(bounds.x, bounds.y, bounds.width, bounds.height, null));
+        Graphics2D g = drawImage.createGraphics();
+        applyRenderingHints(g);
+        g.clip(bounds);
+        for (DrawingOperation stroke : strokes) {
+            stroke.draw(g);
+        }
+        g.dispose();
+        markDirty(bounds);
+    }
+    
+    // 점들을 잇는 부드러운 경로 만들기 (다른 사람이 그린 곡선도 같은 모양으로 그리도록 공유)
+    static Path2D smoothPath(List<Point> points) {
+        int numPoints = points.size();
         
         // 새 부드러운 경로 생성
         Path2D smoothPath = new Path2D.Float();
         
         // 첫 점을 시작점으로 설정
-        Point p0 = freehandPoints.get(0);
+        Point p0 = points.get(0);
         smoothPath.moveTo(p0.x, p0.y);
         
         // 각 점들을 이용해 부드러운 곡선 그리기
         for (int i = 1; i < numPoints - 1; i++) {
-            Point p1 = freehandPoints.get(i);     // 현재 점
-            Point p2 = freehandPoints.get(i + 1); // 다음 점
+            Point p1 = points.get(i);     // 현재 점
+            Point p2 = points.get(i + 1); // 다음 점
             
             // 이전 점과 현재 점 사이의 중간점 계산
             float cx1 = (p0.x + p1.x) / 2.0f;
@@ -286,51 +540,40 @@ class DrawingPanel extends JPanel {
         }
         
         // 마지막 점 추가
-        Point lastPoint = freehandPoints.get(numPoints - 1);
+        Point lastPoint = points.get(numPoints - 1);
         smoothPath.lineTo(lastPoint.x, lastPoint.y);
-        
-        // 부드러운 곡선 그리기
-        g2d.draw(smoothPath);
-        
-        // 현재 패스 업데이트
-        currentPath = smoothPath;
+        return smoothPath;
     }
     
     // 그림 그리기 (화면에 보여주는 메소드, 자동 호출됨)
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        // 그림 이미지가 없으면 지금 패널 크기로 만들기 (디스크로 내보냈으면 불러오기)
+        if (!tryEnsureImage()) return;
         
-        // 필요한 경우 이미지 크기 조정
-        if (drawImage == null || drawImage.getWidth() != getWidth() || drawImage.getHeight() != getHeight()) {
-            // 새 이미지 생성
-            BufferedImage newImage = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-            Graphics2D newG2d = newImage.createGraphics();
-            
-            // 부드러운 그리기 설정
-            newG2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            newG2d.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
-            newG2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-            
-            // 기존 이미지가 있으면 복사
-            if (drawImage != null) {
-                newG2d.drawImage(drawImage, 0, 0, null);
-            } else {
-                // 없으면 흰색 배경 생성
-                newG2d.setPaint(Color.WHITE);
-                newG2d.fillRect(0, 0, getWidth(), getHeight());
-            }
-            
-            // 새 이미지로 교체
-            drawImage = newImage;
-            g2d = newG2d;
-            g2d.setPaint(color);
-            g2d.setStroke(new BasicStroke(strokeSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        // 패널이 그림보다 커졌으면 그림도 늘리기 (줄어들 때는 그대로 두고 스크롤)
+        if (drawImage.getWidth() < getWidth() || drawImage.getHeight() < getHeight()) {
+            growImage(getWidth(), getHeight());
         }
+        // 열어 둔 문서가 있으면 보이는 곳의 타일만 읽기 (스크롤하면 다시 그려지면서 더 읽음)
+        loadTiles(getVisibleRect());
         
         // 그림 그리기
         g.drawImage(drawImage, 0, 0, null);
         
+        // 선택 영역 그리기 (떠 있는 픽셀은 캐시된 이미지로 바로 그림)
+        if (selection != null) {
+            Graphics2D selectionG2D = (Graphics2D) g.create();
+            if (floating != null) {
+                selectionG2D.drawImage(floating.asImage(), selection.x, selection.y, null);
+            }
+            selectionG2D.setColor(Color.GRAY);
+            selectionG2D.setStroke(SELECTION_STROKE);
+            selectionG2D.drawRect(selection.x, selection.y, selection.width - 1, selection.height - 1);
+            selectionG2D.dispose();
+        }
+        
         // 도형 미리보기 (드래그 중일 때)
         if (isDrawing && startPoint != null && endPoint != null) {
             // 미리보기용 그래픽스 생성
@@ -338,9 +581,7 @@ class DrawingPanel extends JPanel {
             previewG2D.setColor(color);
             previewG2D.setStroke(new BasicStroke(strokeSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
             // 부드러운 그리기 설정
-            previewG2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            previewG2D.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
-            previewG2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            applyRenderingHints(previewG2D);
             
             // 도구에 따라 다른 미리보기
             switch (currentTool) {
@@ -373,11 +614,80 @@ class DrawingPanel extends JPanel {
             // 사용 후 그래픽스 해제
             previewG2D.dispose();
         }
+        
+        // 첫 화면이 그려졌음을 알림
+        if (firstPaintHook != null) {
+            Runnable hook = firstPaintHook;
+            firstPaintHook = null;
+            hook.run();
+        }
+    }
+    
+    // 그림 이미지를 적어도 width x height 크기로 늘리기 (기존 그림은 그대로, 늘어난 곳은 흰색)
+    private void growImage(int width, int height) {
+        width = Math.max(width, drawImage.getWidth());
+        height = Math.max(height, drawImage.getHeight());
+        // 새 이미지 생성
+        BufferedImage newImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D newG2d = newImage.createGraphics();
+        
+        // 부드러운 그리기 설정
+        applyRenderingHints(newG2d);
+        
+        // 흰색 배경 위에 기존 이미지 복사
+        newG2d.setPaint(Color.WHITE);
+        newG2d.fillRect(0, 0, width, height);
+        newG2d.drawImage(drawImage, 0, 0, null);
+        
+        // 새 이미지로 교체
+        g2d.dispose();
+        drawImage = newImage;
+        g2d = newG2d;
+        g2d.setPaint(color);
+        g2d.setStroke(new BasicStroke(strokeSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        
+        // 크기가 바뀌었으니 전체가 바뀐 것으로 알림
+        markDirty(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+        fireCanvasChanged();
+    }
+    
+    // 스크롤 패널 안에서의 크기 = 그림 크기
+    @Override
+    public Dimension getPreferredSize() {
+        if (drawImage == null) return super.getPreferredSize();
+        return new Dimension(drawImage.getWidth(), drawImage.getHeight());
+    }
+    
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+    
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return 16;
+    }
+    
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+    
+    // 화면이 그림보다 크면 패널을 화면에 맞춰 늘림 (그림도 같이 늘어남)
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return getParent() instanceof JViewport && getParent().getWidth() >= getPreferredSize().width;
+    }
+    
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport && getParent().getHeight() >= getPreferredSize().height;
     }
     
     // 실행 취소를 위한 현재 상태 저장
     public void saveForUndo() {
-        // 현재 이미지 복사
+        ensureImage();
+        // 현재 이미지 복사 (아직 읽지 않은 타일은 흰색 그대로 두고 어느 타일인지만 기록)
         BufferedImage copy = new BufferedImage(drawImage.getWidth(), drawImage.getHeight(), BufferedImage.TYPE_INT_ARGB);
         Graphics2D copyG2d = copy.createGraphics();
         copyG2d.drawImage(drawImage, 0, 0, null);
@@ -385,70 +695,545 @@ class DrawingPanel extends JPanel {
         
         // 스택에 저장
         undoStack.push(copy);
+        undoTiles.push(currentTiles());
         // 다시 실행 스택 비우기
         redoStack.clear();
+        redoTiles.clear();
         
         // 스택 크기 제한 (메모리 관리)
         if (undoStack.size() > MAX_UNDO) {
             undoStack.remove(0);
+            undoTiles.remove(0);
         }
     }
     
     // 실행 취소
     public void undo() {
+        if (collaborating) return;
+        ensureImage();
+        dropSelection();
         if (undoStack.size() > 1) {  // 처음 상태는 남겨둠
             // 현재 상태를 다시 실행 스택에 저장
             BufferedImage currentState = undoStack.pop();
             redoStack.push(currentState);
+            redoTiles.push(undoTiles.pop());
             
-            // 이전 상태 복원
+            // 이전 상태 복원 (그때 읽지 않았던 타일은 다시 화면에 보일 때 읽음)
             BufferedImage previousState = undoStack.peek();
             g2d.drawImage(previousState, 0, 0, null);
+            restoreTiles(undoTiles.peek());
+            markDirty(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+            fireCanvasChanged();
             repaint();
         }
     }
     
     // 다시 실행
     public void redo() {
+        if (collaborating) return;
+        ensureImage();
+        dropSelection();
         if (!redoStack.empty()) {
             // 다시 실행 스택에서 상태 가져오기
             BufferedImage nextState = redoStack.pop();
             undoStack.push(nextState);
+            undoTiles.push(redoTiles.pop());
             
             // 상태 복원
             g2d.drawImage(nextState, 0, 0, null);
+            restoreTiles(undoTiles.peek());
+            markDirty(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+            fireCanvasChanged();
             repaint();
         }
     }
     
     // 이미지 설정 (불러오기용)
     public void setImage(BufferedImage image) {
+        if (collaborating) return;
+        dropSelection();
         saveForUndo();
         
-        // 새 이미지 복사
+        // 불러온 이미지가 더 크면 그림을 늘리고 스크롤할 수 있게 함
+        if (image.getWidth() > drawImage.getWidth() || image.getHeight() > drawImage.getHeight()) {
+            growImage(image.getWidth(), image.getHeight());
+            revalidate();
+        }
+        
+        // 새 이미지 복사 (열어 둔 문서의 남은 타일은 버림)
+        document = null;
+        loadedTiles = null;
         g2d.setColor(Color.WHITE);
         g2d.fillRect(0, 0, drawImage.getWidth(), drawImage.getHeight());
         g2d.drawImage(image, 0, 0, null);
+        markDirty(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+        fireCanvasChanged();
         repaint();
     }
     
-    // 현재 이미지 가져오기 (저장용)
+    // 그림판 문서 열기 (그림을 문서 크기로 늘리고, 타일은 화면에 보일 때 읽음)
+    // 그림 전체는 메모리에 두므로, 그림과 실행 취소 기록 하나가 최대 힙에 들어가지 않는 문서는 열 수 없음
+    public void openDocument(TiledDocument opened) throws IOException {
+        if (collaborating) return;
+        ensureImage();
+        long pixels = (long) Math.max(opened.getWidth(), drawImage.getWidth())
+                * Math.max(opened.getHeight(), drawImage.getHeight());
+        if (pixels > Integer.MAX_VALUE - 8 || pixels * 4 * 2 > Runtime.getRuntime().maxMemory()) {
+            throw new IOException("문서가 너무 커서 열 수 없습니다 (" + opened.getWidth() + "x" + opened.getHeight() + ")");
+        }
+        dropSelection();
+        saveForUndo();
+        
+        if (opened.getWidth() > drawImage.getWidth() || opened.getHeight() > drawImage.getHeight()) {
+            growImage(opened.getWidth(), opened.getHeight());
+            revalidate();
+        }
+        
+        // 아직 읽지 않은 곳은 흰색 (타일은 흰 배경 위에 그려짐)
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, drawImage.getWidth(), drawImage.getHeight());
+        document = opened;
+        int tileSize = opened.getTileSize();
+        loadedTiles = new boolean[((opened.getWidth() + tileSize - 1) / tileSize)
+                * ((opened.getHeight() + tileSize - 1) / tileSize)];
+        markDirty(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+        fireCanvasChanged();
+        repaint();
+    }
+    
+    // 영역에 걸친 타일 중 아직 읽지 않은 것만 문서에서 읽어서 그림에 그리기
+    private void loadTiles(Rectangle area) {
+        if (document == null) return;
+        int tileSize = document.getTileSize();
+        int columns = (document.getWidth() + tileSize - 1) / tileSize;
+        Rectangle needed = area.intersection(new Rectangle(0, 0, document.getWidth(), document.getHeight()));
+        if (needed.isEmpty()) return;
+        int firstColumn = needed.x / tileSize;
+        int lastColumn = (needed.x + needed.width - 1) / tileSize;
+        int firstRow = needed.y / tileSize;
+        int lastRow = (needed.y + needed.height - 1) / tileSize;
+        
+        // 읽지 않은 타일들을 감싸는 영역을 한 번에 읽음 (타일 압축은 병렬로 풀림)
+        Rectangle missing = null;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                if (!loadedTiles[row * columns + column]) {
+                    Rectangle tile = tileBounds(row, column);
+                    missing = missing == null ? tile : missing.union(tile);
+                }
+            }
+        }
+        if (missing == null) return;
+        BufferedImage tiles;
+        try {
+            tiles = document.read(missing);
+        } catch (IOException e) {
+            // 손상된 문서는 더 읽지 않음 (읽지 못한 곳은 흰색으로 남음)
+            document = null;
+            loadedTiles = null;
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "문서를 읽는 중 오류: " + e.getMessage(), "오류", JOptionPane.ERROR_MESSAGE));
+            return;
+        }
+        
+        // 마지막 실행 취소 기록도 같은 문서에서 그 타일을 아직 안 읽었으면 같이 채움
+        // (곡선을 다시 그릴 때 그 기록에서 누르기 전 그림을 가져오므로)
+        TileState top = undoTiles.isEmpty() || undoStack.isEmpty() ? null : undoTiles.peek();
+        Graphics2D topG2d = top != null && top.document == document ? undoStack.peek().createGraphics() : null;
+        
+        // 읽지 않았던 타일만 그림에 옮김 (이미 읽은 타일은 그 뒤에 바뀌었을 수 있음)
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int index = row * columns + column;
+                if (loadedTiles[index]) continue;
+                Rectangle tile = tileBounds(row, column);
+                BufferedImage tileImage = tiles.getSubimage(tile.x - missing.x, tile.y - missing.y,
+                        tile.width, tile.height);
+                g2d.drawImage(tileImage, tile.x, tile.y, null);
+                loadedTiles[index] = true;
+                markDirty(tile);
+                if (topG2d != null && !top.loaded[index]) {
+                    topG2d.drawImage(tileImage, tile.x, tile.y, null);
+                    top.loaded[index] = true;
+                }
+            }
+        }
+        if (topG2d != null) {
+            topG2d.dispose();
+        }
+        
+        // 모두 읽었으면 문서는 더 필요 없음
+        boolean complete = true;
+        for (boolean loaded : loadedTiles) {
+            complete &= loaded;
+        }
+        if (complete) {
+            document = null;
+            loadedTiles = null;
+        }
+        fireCanvasChanged();
+    }
+    
+    // 지금 아직 읽지 않은 타일 (실행 취소 기록용, 모두 읽었으면 null)
+    private TileState currentTiles() {
+        return document == null ? null : new TileState(document, loadedTiles.clone());
+    }
+    
+    // 실행 취소 기록의 타일 상태로 되돌리기
+    private void restoreTiles(TileState state) {
+        document = state == null ? null : state.document;
+        loadedTiles = state == null ? null : state.loaded.clone();
+    }
+    
+    // 열어 둔 문서의 남은 타일을 모두 읽기 (저장, 내보내기, 필터처럼 그림 전체가 필요할 때)
+    private void loadRemainingTiles() {
+        if (document != null) {
+            loadTiles(new Rectangle(0, 0, document.getWidth(), document.getHeight()));
+        }
+    }
+    
+    // 문서 타일 하나가 차지하는 영역
+    private Rectangle tileBounds(int row, int column) {
+        int tileSize = document.getTileSize();
+        int x = column * tileSize;
+        int y = row * tileSize;
+        return new Rectangle(x, y, Math.min(tileSize, document.getWidth() - x),
+                Math.min(tileSize, document.getHeight() - y));
+    }
+    
+    // 필터 적용 (실행 취소 한 번으로 되돌릴 수 있음)
+    public void applyFilter(ImageFilter filter) {
+        if (collaborating) return;
+        if (floating != null) {
+            // 떠 있는 선택 영역에만 적용 (클립보드와 공유 중이면 이때 처음 복사됨)
+            filter.apply(floating.getWritablePixels(), floating.getWidth(),
+                    new Rectangle(0, 0, floating.getWidth(), floating.getHeight()));
+            repaint();
+            return;
+        }
+        saveForUndo();
+        // 선택 영역이 있으면 그 안에만, 없으면 전체에 적용
+        Rectangle region = selection != null ? selection
+                : new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight());
+        loadTiles(region);
+        filter.apply(getPixels(), drawImage.getWidth(), region);
+        markDirty(region);
+        fireCanvasChanged();
+        repaint();
+    }
+    
+    // 선택 도구로 마우스를 눌렀을 때
+    private void selectPressed(Point p) {
+        if (selection != null && selection.contains(p)) {
+            // 선택 영역 안을 누르면 옮기기 준비
+            dragOffset = new Point(p.x - selection.x, p.y - selection.y);
+        } else {
+            // 바깥을 누르면 이전 선택 영역을 확정하고 새로 선택 시작
+            commitSelection();
+            selection = null;
+            dragOffset = null;
+        }
+        repaint();
+    }
+    
+    // 선택 도구로 드래그할 때
+    private void selectDragged(Point p) {
+        if (dragOffset != null) {
+            // 처음 옮길 때 픽셀을 떼어냄
+            if (floating == null) {
+                liftSelection();
+            }
+            selection.setLocation(p.x - dragOffset.x, p.y - dragOffset.y);
+        } else {
+            // 새 선택 영역 (그림 밖으로 나가지 않게)
+            selection = new Rectangle(Math.min(startPoint.x, p.x), Math.min(startPoint.y, p.y),
+                    Math.abs(startPoint.x - p.x), Math.abs(startPoint.y - p.y))
+                    .intersection(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+        }
+        repaint();
+    }
+    
+    // 선택 도구로 마우스를 뗐을 때
+    private void selectReleased() {
+        if (dragOffset == null && selection != null && selection.isEmpty()) {
+            selection = null;
+        }
+        dragOffset = null;
+        repaint();
+    }
+    
+    // 선택 영역의 픽셀을 떼어내서 띄우기 (원래 자리는 흰색)
+    private void liftSelection() {
+        saveForUndo();
+        loadTiles(selection);
+        floating = PixelRegion.copyOf(getPixels(), drawImage.getWidth(), selection);
+        // 원래 자리도 바뀐 영역 (붙일 때 같이 알림)
+        markDirty(selection);
+        g2d.setPaint(Color.WHITE);
+        g2d.fillRect(selection.x, selection.y, selection.width, selection.height);
+        g2d.setPaint(color);
+    }
+    
+    // 떠 있는 선택 영역을 그림에 붙이기
+    public void commitSelection() {
+        if (floating != null) {
+            pasteFloating();
+            fireCanvasChanged();
+            repaint();
+        }
+    }
+    
+    // 떠 있는 픽셀을 그림에 그리고 바뀐 영역에 추가 (리스너에게 알리지는 않음)
+    private void pasteFloating() {
+        if (floating == null) return;
+        loadTiles(selection);
+        g2d.drawImage(floating.asImage(), selection.x, selection.y, null);
+        floating.release();
+        floating = null;
+        markDirty(selection);
+    }
+    
+    // 선택 영역 없애기 (떠 있는 픽셀은 버림)
+    private void dropSelection() {
+        if (floating != null) {
+            floating.release();
+            floating = null;
+        }
+        selection = null;
+        dragOffset = null;
+    }
+    
+    // 선택 영역 복사
+    public void copySelection() {
+        if (selection == null) return;
+        loadTiles(selection);
+        // 떠 있는 픽셀이면 복사하지 않고 같이 씀
+        PixelRegion copied = floating != null ? floating.share()
+                : PixelRegion.copyOf(getPixels(), drawImage.getWidth(), selection);
+        if (clipboard != null) {
+            clipboard.release();
+        }
+        clipboard = copied;
+    }
+    
+    // 붙여넣기 (왼쪽 위에 떠 있는 선택 영역으로 놓임)
+    public boolean paste() {
+        if (clipboard == null || collaborating) return false;
+        commitSelection();
+        saveForUndo();
+        floating = clipboard.share();
+        selection = new Rectangle(0, 0, floating.getWidth(), floating.getHeight());
+        repaint();
+        return true;
+    }
+    
+    // 그림과 실행 취소 기록이 쓰는 메모리 (바이트, 내보냈거나 아직 안 만들었으면 0)
+    public long getMemoryUsage() {
+        if (swapFiles != null || drawImage == null) return 0;
+        long bytes = imageBytes(drawImage);
+        for (BufferedImage image : undoStack) {
+            bytes += imageBytes(image);
+        }
+        for (BufferedImage image : redoStack) {
+            bytes += imageBytes(image);
+        }
+        return bytes;
+    }
+    
+    private static long imageBytes(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+    
+    // 디스크로 내보낸 상태인지
+    public boolean isSwappedOut() {
+        return swapFiles != null;
+    }
+    
+    // 그림과 실행 취소 기록을 압축해서 디스크로 내보내고 메모리에서 지움
+    public void swapOut(File directory) throws IOException {
+        if (swapFiles != null || drawImage == null) return;
+        // 아직 읽지 않은 타일은 그대로 두고 다시 불러온 뒤에 읽음
+        // 리스너에게 알리지 않고 붙임 (알림을 받은 메모리 관리자가 다시 내보내지 않도록,
+        // 바뀐 영역은 남겨 두었다가 다시 불러온 뒤 다음 알림 때 같이 알려줌)
+        pasteFloating();
+        selection = null;
+        
+        ArrayList<BufferedImage> images = new ArrayList<>();
+        images.add(drawImage);
+        images.addAll(undoStack);
+        images.addAll(redoStack);
+        ArrayList<File> files = new ArrayList<>();
+        try {
+            for (BufferedImage image : images) {
+                File file = File.createTempFile("canvas", "." + TiledDocument.EXTENSION, directory);
+                file.deleteOnExit();
+                files.add(file);
+                TiledDocument.write(image, file);
+            }
+        } catch (IOException e) {
+            // 실패하면 쓰던 파일 지우고 그대로 메모리에 둠
+            for (File file : files) {
+                file.delete();
+            }
+            throw e;
+        }
+        
+        swappedUndoCount = undoStack.size();
+        swapFiles = files;
+        drawImage = null;
+        g2d.dispose();
+        g2d = null;
+        undoStack.clear();
+        redoStack.clear();
+    }
+    
+    // 디스크로 내보낸 그림과 실행 취소 기록 다시 불러오기
+    public void swapIn() {
+        if (swapFiles == null) return;
+        // 모두 읽은 뒤에 바꿈 (중간에 실패하면 내보낸 상태 그대로 둠)
+        BufferedImage image;
+        ArrayList<BufferedImage> undoImages = new ArrayList<>();
+        ArrayList<BufferedImage> redoImages = new ArrayList<>();
+        try {
+            image = readSwapFile(swapFiles.get(0));
+            for (int i = 1; i < swapFiles.size(); i++) {
+                (i <= swappedUndoCount ? undoImages : redoImages).add(readSwapFile(swapFiles.get(i)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("그림을 다시 불러오지 못했습니다", e);
+        }
+        drawImage = image;
+        undoStack.addAll(undoImages);
+        redoStack.addAll(redoImages);
+        swapInFailed = false;
+        discardSwap();
+        
+        g2d = drawImage.createGraphics();
+        applyRenderingHints(g2d);
+        g2d.setPaint(color);
+        g2d.setStroke(new BasicStroke(strokeSize, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+    }
+    
+    // 디스크로 내보낸 파일 지우기 (문서를 닫을 때도 호출)
+    public void discardSwap() {
+        if (swapFiles == null) return;
+        for (File file : swapFiles) {
+            file.delete();
+        }
+        swapFiles = null;
+    }
+    
+    private static BufferedImage readSwapFile(File file) throws IOException {
+        TiledDocument document = TiledDocument.open(file);
+        return document.read(new Rectangle(0, 0, document.getWidth(), document.getHeight()));
+    }
+    
+    // 처음 화면에 그려졌을 때 실행할 작업 설정
+    static void setFirstPaintHook(Runnable hook) {
+        firstPaintHook = hook;
+    }
+    
+    // 그림 변경 리스너 등록
+    public void addCanvasListener(CanvasListener listener) {
+        canvasListeners.add(listener);
+    }
+    
+    // 그림 변경 리스너 제거
+    public void removeCanvasListener(CanvasListener listener) {
+        canvasListeners.remove(listener);
+    }
+    
+    // 그리기 작업 리스너 등록
+    public void addOperationListener(OperationListener listener) {
+        operationListeners.add(listener);
+    }
+    
+    // 그리기 작업 리스너 제거
+    public void removeOperationListener(OperationListener listener) {
+        operationListeners.remove(listener);
+    }
+    
+    // 그리기 작업 하나를 리스너에게 알려주기
+    private void fireOperation(DrawingOperation operation) {
+        for (OperationListener listener : operationListeners) {
+            listener.operationDrawn(operation);
+        }
+    }
+    
+    // 그림 이미지가 이미 만들어져 있는지 (만들지 않고 확인만)
+    public boolean hasImage() {
+        return drawImage != null;
+    }
+    
+    // 바뀐 영역 추가 (선 두께와 안티앨리어싱만큼 넉넉하게)
+    private void markDirty(Rectangle r) {
+        Rectangle grown = new Rectangle(r);
+        grown.grow(strokeSize + 1, strokeSize + 1);
+        dirtyRegion = dirtyRegion == null ? grown : dirtyRegion.union(grown);
+    }
+    
+    // 작업 하나가 끝났을 때 바뀐 영역을 리스너에게 알려주기
+    private void fireCanvasChanged() {
+        if (dirtyRegion == null) return;
+        Rectangle dirty = dirtyRegion.intersection(new Rectangle(0, 0, drawImage.getWidth(), drawImage.getHeight()));
+        dirtyRegion = null;
+        if (dirty.isEmpty()) return;
+        for (CanvasListener listener : canvasListeners) {
+            listener.canvasChanged(drawImage, dirty);
+        }
+    }
+    
+    // 이미지 뒤에 있는 픽셀 배열 (직접 바꾸면 바로 그림에 반영됨)
+    private int[] getPixels() {
+        return ((DataBufferInt) drawImage.getRaster().getDataBuffer()).getData();
+    }
+    
+    // 현재 이미지 가져오기 (저장용, 열어 둔 문서의 남은 타일도 모두 읽음)
     public BufferedImage getImage() {
+        ensureImage();
+        loadRemainingTiles();
+        return drawImage;
+    }
+    
+    // 지금까지 읽은 그림 이미지 (문서에서 아직 읽지 않은 타일은 흰색, 미리보기용)
+    BufferedImage getLoadedImage() {
+        ensureImage();
         return drawImage;
     }
     
     // 도구 설정
     public void setTool(MainFrame.DrawingTool tool) {
+        // 다른 도구로 바꾸면 선택 영역 확정
+        if (tool != MainFrame.DrawingTool.SELECT) {
+            commitSelection();
+            selection = null;
+            repaint();
+        }
         currentTool = tool;
     }
     
+    // 현재 도구 가져오기
+    public MainFrame.DrawingTool getTool() {
+        return currentTool;
+    }
+    
     // 색상 설정
     public void setColor(Color color) {
         this.color = color;
     }
     
+    // 현재 색상 가져오기
+    public Color getColor() {
+        return color;
+    }
+    
     // 선 두께 설정
     public void setStrokeSize(int size) {
         strokeSize = size;
     }
+    
+    // 현재 선 두께 가져오기
+    public int getStrokeSize() {
+        return strokeSize;
+    }
 }
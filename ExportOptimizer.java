@@ -0,0 +1,189 @@
+package draw;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// 저장할 때 파일 크기를 줄이기 위한 변환
+// 색이 256개 이하면 팔레트(인덱스) PNG로, 아니면 투명도가 필요할 때만 ARGB로 저장함
+final class ExportOptimizer {
+    // 팔레트에 넣을 수 있는 최대 색 수
+    private static final int MAX_COLORS = 256;
+
+    private ExportOptimizer() {
+    }
+
+    // 저장 형식에 맞게 가장 작은 이미지로 바꿔서 돌려줌 (원본은 TYPE_INT_ARGB)
+    static BufferedImage optimize(BufferedImage image, String format) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        if (format.equals("png")) {
+            int[] palette = findPalette(pixels, width, height);
+            if (palette != null) {
+                return toIndexed(pixels, width, height, palette);
+            }
+        }
+        // JPEG, BMP는 투명도를 못 쓰고, PNG도 불투명하면 알파 채널이 필요 없음
+        if (!format.equals("png") || isOpaque(pixels, width, height)) {
+            BufferedImage rgb = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            int[] data = ((DataBufferInt) rgb.getRaster().getDataBuffer()).getData();
+            System.arraycopy(pixels, 0, data, 0, data.length);
+            return rgb;
+        }
+        return image;
+    }
+
+    // 쓰인 색을 모두 찾아서 정렬된 배열로 돌려줌 (256개가 넘으면 null)
+    static int[] findPalette(int[] pixels, int width, int height) {
+        AtomicBoolean tooMany = new AtomicBoolean();
+        List<ColorSet> bandSets = new ArrayList<>();
+        // 밴드마다 따로 세고 나중에 합침 (256개가 넘으면 모든 밴드가 바로 멈춤)
+        ImageFilters.forEachBand(0, height, (from, to) -> {
+            ColorSet set = new ColorSet();
+            for (int y = from; y < to && !tooMany.get(); y++) {
+                for (int i = y * width, end = i + width; i < end; i++) {
+                    if (set.add(pixels[i]) && set.size() > MAX_COLORS) {
+                        tooMany.set(true);
+                        break;
+                    }
+                }
+            }
+            synchronized (bandSets) {
+                bandSets.add(set);
+            }
+        });
+        if (tooMany.get()) return null;
+
+        ColorSet all = new ColorSet();
+        for (ColorSet set : bandSets) {
+            for (int color : set.toArray()) {
+                all.add(color);
+                if (all.size() > MAX_COLORS) return null;
+            }
+        }
+        int[] palette = all.toArray();
+        Arrays.sort(palette);
+        return palette;
+    }
+
+    // 팔레트 이미지 만들기 (색 수에 따라 1, 2, 4, 8비트)
+    private static BufferedImage toIndexed(int[] pixels, int width, int height, int[] palette) {
+        int size = palette.length;
+        int bits = size <= 2 ? 1 : size <= 4 ? 2 : size <= 16 ? 4 : 8;
+        byte[] r = new byte[size];
+        byte[] g = new byte[size];
+        byte[] b = new byte[size];
+        byte[] a = new byte[size];
+        boolean hasAlpha = false;
+        ColorSet index = new ColorSet();
+        for (int i = 0; i < size; i++) {
+            int c = palette[i];
+            a[i] = (byte) (c >>> 24);
+            r[i] = (byte) (c >> 16);
+            g[i] = (byte) (c >> 8);
+            b[i] = (byte) c;
+            hasAlpha |= (c >>> 24) != 0xFF;
+            index.put(c, i);
+        }
+        // 투명한 색이 있을 때만 알파 값을 팔레트에 넣음
+        IndexColorModel colorModel = hasAlpha
+                ? new IndexColorModel(bits, size, r, g, b, a)
+                : new IndexColorModel(bits, size, r, g, b);
+        BufferedImage indexed = bits == 8
+                ? new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, colorModel)
+                : new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY, colorModel);
+        WritableRaster raster = indexed.getRaster();
+
+        // 줄마다 따로 바이트가 나뉘어 있으므로 밴드별로 동시에 써도 됨
+        ImageFilters.forEachBand(0, height, (from, to) -> {
+            int[] row = new int[width];
+            for (int y = from; y < to; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = index.get(pixels[y * width + x]);
+                }
+                raster.setSamples(0, y, width, 1, 0, row);
+            }
+        });
+        return indexed;
+    }
+
+    // 모든 픽셀이 불투명한지 확인
+    private static boolean isOpaque(int[] pixels, int width, int height) {
+        AtomicBoolean transparent = new AtomicBoolean();
+        ImageFilters.forEachBand(0, height, (from, to) -> {
+            for (int y = from; y < to && !transparent.get(); y++) {
+                for (int i = y * width, end = i + width; i < end; i++) {
+                    if ((pixels[i] >>> 24) != 0xFF) {
+                        transparent.set(true);
+                        break;
+                    }
+                }
+            }
+        });
+        return !transparent.get();
+    }
+
+    // 색 -> 번호 해시 테이블 (색은 int 그대로 키로 씀, 최대 MAX_COLORS + 1개)
+    private static final class ColorSet {
+        private static final int CAPACITY = 1024;  // 2의 거듭제곱, 최대 개수의 4배 정도
+        private final int[] keys = new int[CAPACITY];
+        private final int[] values = new int[CAPACITY];
+        private final boolean[] used = new boolean[CAPACITY];
+        private int size;
+        // 바로 전에 찾은 색 (같은 색이 이어지는 경우가 대부분이라 빠름)
+        private int lastKey;
+        private int lastSlot = -1;
+
+        // 색 추가 (새로 추가됐으면 true)
+        boolean add(int color) {
+            if (lastSlot >= 0 && lastKey == color) return false;
+            int slot = slot(color);
+            lastKey = color;
+            lastSlot = slot;
+            if (used[slot]) return false;
+            used[slot] = true;
+            keys[slot] = color;
+            size++;
+            return true;
+        }
+
+        void put(int color, int value) {
+            add(color);
+            values[slot(color)] = value;
+        }
+
+        // 색의 번호 (여러 스레드에서 읽기만 할 때 호출)
+        int get(int color) {
+            return values[slot(color)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            int[] colors = new int[size];
+            int n = 0;
+            for (int i = 0; i < CAPACITY; i++) {
+                if (used[i]) colors[n++] = keys[i];
+            }
+            return colors;
+        }
+
+        // 색이 있는 칸 또는 들어갈 빈 칸
+        private int slot(int color) {
+            int slot = (color * 0x9E3779B9) >>> 22;  // 상위 10비트 (CAPACITY = 2^10)
+            while (used[slot] && keys[slot] != color) {
+                slot = (slot + 1) & (CAPACITY - 1);
+            }
+            return slot;
+        }
+    }
+}
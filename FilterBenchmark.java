@@ -0,0 +1,46 @@
+package draw;
+
+import java.awt.Rectangle;
+import java.util.Random;
+
+// 필터 속도 측정 프로그램 (초당 몇 메가픽셀을 처리하는지 출력)
+// 실행: java draw.FilterBenchmark [너비] [높이]
+public class FilterBenchmark {
+    private static final int WARMUP = 3;  // 워밍업 횟수 (JIT 컴파일 기다리기)
+    private static final int RUNS = 5;    // 측정 횟수
+
+    public static void main(String[] args) {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+
+        // 무작위 색으로 채운 이미지 준비
+        int[] pixels = new int[width * height];
+        Random random = new Random(42);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        Rectangle region = new Rectangle(0, 0, width, height);
+
+        System.out.printf("이미지 크기: %d x %d, 코어 수: %d%n",
+                width, height, Runtime.getRuntime().availableProcessors());
+        measure("가우시안 흐림 (sigma 2)", ImageFilters.gaussianBlur(2), pixels, width, region);
+        measure("언샤프 마스크", ImageFilters.unsharpMask(2, 1), pixels, width, region);
+        measure("밝기/대비", ImageFilters.brightnessContrast(20, 20), pixels, width, region);
+        measure("반전", ImageFilters.invert(), pixels, width, region);
+    }
+
+    // 필터 하나 측정해서 결과 출력
+    private static void measure(String name, ImageFilter filter, int[] pixels, int stride, Rectangle region) {
+        for (int i = 0; i < WARMUP; i++) {
+            filter.apply(pixels, stride, region);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            filter.apply(pixels, stride, region);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        double megapixels = (double) region.width * region.height / 1_000_000;
+        System.out.printf("%-20s %8.2f ms  %8.1f MP/s%n", name, best / 1e6, megapixels / (best / 1e9));
+    }
+}
@@ -0,0 +1,15 @@
+package draw;
+
+import java.awt.Rectangle;
+
+// 이미지 필터 인터페이스
+// drawImage 뒤에 있는 int[] 픽셀 배열(ARGB)을 직접 바꿈
+interface ImageFilter {
+    /**
+     * 필터 적용 메소드
+     * @param pixels 이미지 전체 픽셀 배열 (한 줄에 stride 개씩)
+     * @param stride 한 줄의 픽셀 수 (이미지 너비)
+     * @param region 필터를 적용할 영역
+     */
+    void apply(int[] pixels, int stride, Rectangle region);
+}
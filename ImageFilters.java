@@ -0,0 +1,232 @@
+package draw;
+
+import java.awt.Rectangle;
+import java.util.stream.IntStream;
+
+// 이미지 필터 모음 (흐림, 선명하게, 밝기/대비, 반전)
+// 영역을 여러 줄 묶음(밴드)으로 나눠서 CPU 코어 수만큼 병렬로 처리함
+final class ImageFilters {
+    // 밴드 하나의 최소 줄 수 (너무 잘게 나누면 오히려 느려짐)
+    private static final int MIN_BAND_ROWS = 16;
+    // 최대 밴드 수 (코어보다 조금 많게 나눠서 작업량을 고르게)
+    private static final int MAX_BANDS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private ImageFilters() {
+    }
+
+    // 가우시안 흐림 (가로 한 번, 세로 한 번으로 나눠서 계산)
+    // 시그마가 0 이하면 아무것도 바꾸지 않음
+    // 밴드마다 쓰는 작업 배열은 필터 안에 두고 다음에 다시 씀 (같은 필터는 한 번에 하나씩 적용됨)
+    static ImageFilter gaussianBlur(double sigma) {
+        if (!(sigma > 0)) return (pixels, stride, region) -> { };
+        float[] kernel = gaussianKernel(sigma);
+        BandBuffers buffers = new BandBuffers();
+        return (pixels, stride, region) -> blur(pixels, stride, region, kernel, buffers,
+                (y, blurred) -> System.arraycopy(blurred, 0, pixels, (region.y + y) * stride + region.x, region.width));
+    }
+
+    // 선명하게 (언샤프 마스크: 원본 + amount * (원본 - 흐린 이미지))
+    // 시그마가 0 이하면 흐린 이미지가 원본과 같으므로 아무것도 바꾸지 않음
+    static ImageFilter unsharpMask(double sigma, double amount) {
+        if (!(sigma > 0)) return (pixels, stride, region) -> { };
+        float[] kernel = gaussianKernel(sigma);
+        float k = (float) amount;
+        BandBuffers buffers = new BandBuffers();
+        return (pixels, stride, region) -> blur(pixels, stride, region, kernel, buffers, (y, blurred) -> {
+            int row = (region.y + y) * stride + region.x;
+            for (int x = 0; x < region.width; x++) {
+                int p = pixels[row + x];
+                int b = blurred[x];
+                int r = sharpen((p >> 16) & 0xFF, (b >> 16) & 0xFF, k);
+                int g = sharpen((p >> 8) & 0xFF, (b >> 8) & 0xFF, k);
+                int bl = sharpen(p & 0xFF, b & 0xFF, k);
+                // 투명도는 원본 그대로
+                pixels[row + x] = (p & 0xFF000000) | (r << 16) | (g << 8) | bl;
+            }
+        });
+    }
+
+    // 밝기/대비 조절 (둘 다 -100 ~ 100)
+    static ImageFilter brightnessContrast(int brightness, int contrast) {
+        // 256칸짜리 변환표를 미리 만들어 두고 픽셀마다 찾아보기만 함
+        int[] table = new int[256];
+        double c = contrast * 2.55;
+        double factor = (259 * (c + 255)) / (255 * (259 - c));
+        for (int i = 0; i < 256; i++) {
+            table[i] = clamp((int) Math.round(factor * (i - 128) + 128 + brightness * 2.55));
+        }
+        return (pixels, stride, region) -> forEachBand(region.y, region.y + region.height, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                int start = y * stride + region.x;
+                int end = start + region.width;
+                for (int i = start; i < end; i++) {
+                    int p = pixels[i];
+                    pixels[i] = (p & 0xFF000000)
+                            | (table[(p >> 16) & 0xFF] << 16)
+                            | (table[(p >> 8) & 0xFF] << 8)
+                            | table[p & 0xFF];
+                }
+            }
+        });
+    }
+
+    // 색 반전 (투명도는 그대로)
+    static ImageFilter invert() {
+        return (pixels, stride, region) -> forEachBand(region.y, region.y + region.height, (from, to) -> {
+            for (int y = from; y < to; y++) {
+                int start = y * stride + region.x;
+                int end = start + region.width;
+                for (int i = start; i < end; i++) {
+                    pixels[i] ^= 0x00FFFFFF;
+                }
+            }
+        });
+    }
+
+    // 밴드 하나가 할 일 (fromY 이상 toY 미만의 줄)
+    interface BandTask {
+        void run(int fromY, int toY);
+    }
+
+    // [y0, y1) 줄들을 밴드로 나눠서 병렬 실행
+    static void forEachBand(int y0, int y1, BandTask task) {
+        forEachIndexedBand(y0, y1, (band, from, to) -> task.run(from, to));
+    }
+
+    // 밴드 번호도 받는 작업 (같은 줄 수면 항상 같은 번호에 같은 줄이 옴)
+    private interface IndexedBandTask {
+        void run(int band, int fromY, int toY);
+    }
+
+    private static void forEachIndexedBand(int y0, int y1, IndexedBandTask task) {
+        int rows = y1 - y0;
+        int bands = Math.max(1, Math.min(MAX_BANDS, rows / MIN_BAND_ROWS));
+        if (bands == 1) {
+            // 작은 영역은 그냥 현재 스레드에서
+            task.run(0, y0, y1);
+            return;
+        }
+        IntStream.range(0, bands).parallel().forEach(b -> {
+            int from = y0 + (int) ((long) rows * b / bands);
+            int to = y0 + (int) ((long) rows * (b + 1) / bands);
+            task.run(b, from, to);
+        });
+    }
+
+    // 밴드마다 쓰는 작업 배열 (모자랄 때만 새로 만듦)
+    private static final class BandBuffers {
+        // 가로로 흐린 밴드 줄들 (위아래로 커널 반지름만큼 더)
+        final int[][] horizontal = new int[MAX_BANDS][];
+        // 세로까지 흐린 한 줄
+        final int[][] row = new int[MAX_BANDS][];
+
+        static int[] ensure(int[][] buffers, int band, int size) {
+            if (buffers[band] == null || buffers[band].length < size) {
+                buffers[band] = new int[size];
+            }
+            return buffers[band];
+        }
+    }
+
+    // 흐린 한 줄을 받아서 처리 (blurred는 영역 너비만큼, 다음 줄에서 다시 쓰임)
+    private interface BlurredRow {
+        void accept(int y, int[] blurred);
+    }
+
+    // 가우시안 커널 만들기 (반지름은 시그마의 3배, 시그마는 0보다 커야 함)
+    private static float[] gaussianKernel(double sigma) {
+        int radius = Math.max(1, (int) Math.ceil(sigma * 3));
+        float[] kernel = new float[radius * 2 + 1];
+        double sum = 0;
+        for (int i = -radius; i <= radius; i++) {
+            double v = Math.exp(-(i * i) / (2 * sigma * sigma));
+            kernel[i + radius] = (float) v;
+            sum += v;
+        }
+        for (int i = 0; i < kernel.length; i++) {
+            kernel[i] /= sum;
+        }
+        return kernel;
+    }
+
+    // 영역을 흐리게 해서 한 줄씩 넘겨줌
+    // 1단계에서 모든 밴드가 원본을 다 읽은 뒤에 2단계에서 밴드마다 자기 줄만 쓰므로 원본 배열에 바로 써도 됨
+    private static void blur(int[] pixels, int stride, Rectangle region, float[] kernel,
+                             BandBuffers buffers, BlurredRow output) {
+        int w = region.width;
+        int h = region.height;
+        int radius = kernel.length / 2;
+        synchronized (buffers) {
+            // 1단계: 밴드마다 위아래로 반지름만큼 더 포함해서 가로 방향 흐림 (원본 -> 밴드 배열)
+            forEachIndexedBand(0, h, (band, from, to) -> {
+                int top = Math.max(0, from - radius);
+                int bottom = Math.min(h, to + radius);
+                int[] temp = BandBuffers.ensure(buffers.horizontal, band, (bottom - top) * w);
+                horizontalPass(pixels, stride, region, kernel, temp, top, bottom);
+            });
+            // 2단계: 세로 방향 흐림 (밴드 배열 -> 한 줄씩 output)
+            forEachIndexedBand(0, h, (band, from, to) -> {
+                int[] row = BandBuffers.ensure(buffers.row, band, w);
+                verticalPass(buffers.horizontal[band], w, h, Math.max(0, from - radius), kernel,
+                        row, from, to, output);
+            });
+        }
+    }
+
+    // 가로 방향 흐림 (fromY ~ toY 줄, temp는 fromY 줄부터)
+    private static void horizontalPass(int[] pixels, int stride, Rectangle region, float[] kernel,
+                                       int[] temp, int fromY, int toY) {
+        int w = region.width;
+        int radius = kernel.length / 2;
+        for (int y = fromY; y < toY; y++) {
+            int row = (region.y + y) * stride + region.x;
+            for (int x = 0; x < w; x++) {
+                float a = 0, r = 0, g = 0, b = 0;
+                for (int k = -radius; k <= radius; k++) {
+                    // 가장자리는 끝 픽셀을 반복해서 사용
+                    int p = pixels[row + Math.min(w - 1, Math.max(0, x + k))];
+                    float kv = kernel[k + radius];
+                    a += kv * (p >>> 24);
+                    r += kv * ((p >> 16) & 0xFF);
+                    g += kv * ((p >> 8) & 0xFF);
+                    b += kv * (p & 0xFF);
+                }
+                temp[(y - fromY) * w + x] = pack(a, r, g, b);
+            }
+        }
+    }
+
+    // 세로 방향 흐림 (fromY ~ toY 줄, temp는 tempTop 줄부터)
+    private static void verticalPass(int[] temp, int w, int h, int tempTop, float[] kernel,
+                                     int[] row, int fromY, int toY, BlurredRow output) {
+        int radius = kernel.length / 2;
+        for (int y = fromY; y < toY; y++) {
+            for (int x = 0; x < w; x++) {
+                float a = 0, r = 0, g = 0, b = 0;
+                for (int k = -radius; k <= radius; k++) {
+                    int p = temp[(Math.min(h - 1, Math.max(0, y + k)) - tempTop) * w + x];
+                    float kv = kernel[k + radius];
+                    a += kv * (p >>> 24);
+                    r += kv * ((p >> 16) & 0xFF);
+                    g += kv * ((p >> 8) & 0xFF);
+                    b += kv * (p & 0xFF);
+                }
+                row[x] = pack(a, r, g, b);
+            }
+            output.accept(y, row);
+        }
+    }
+
+    private static int sharpen(int original, int blurred, float amount) {
+        return clamp(Math.round(original + amount * (original - blurred)));
+    }
+
+    private static int pack(float a, float r, float g, float b) {
+        return (clamp((int) (a + 0.5f)) << 24) | (clamp((int) (r + 0.5f)) << 16)
+                | (clamp((int) (g + 0.5f)) << 8) | clamp((int) (b + 0.5f));
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+}
@@ -0,0 +1,188 @@
+package draw;
+
+import java.awt.Color;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// 마우스 입력 녹화 (누르기, 드래그, 떼기와 그 사이 시간)
+// 파일은 한 줄에 이벤트 하나씩 적는 텍스트 형식
+//   첫 줄: 패널 너비 높이
+//   나머지: 종류 시간(ms) x y 수정키 버튼 클릭수 도구 색상 선두께
+class InputRecording {
+    // 녹화된 마우스 이벤트 하나
+    static final class Event {
+        final int id;          // MouseEvent.MOUSE_PRESSED 등
+        final long time;       // 녹화 시작부터 지난 시간 (밀리초)
+        final int x;
+        final int y;
+        final int modifiers;   // MouseEvent.getModifiersEx()
+        final int button;
+        final int clickCount;
+        final MainFrame.DrawingTool tool;  // 이벤트 당시 도구
+        final int rgb;         // 이벤트 당시 색상 (ARGB)
+        final int strokeSize;  // 이벤트 당시 선 두께
+
+        Event(int id, long time, int x, int y, int modifiers, int button, int clickCount,
+              MainFrame.DrawingTool tool, int rgb, int strokeSize) {
+            this.id = id;
+            this.time = time;
+            this.x = x;
+            this.y = y;
+            this.modifiers = modifiers;
+            this.button = button;
+            this.clickCount = clickCount;
+            this.tool = tool;
+            this.rgb = rgb;
+            this.strokeSize = strokeSize;
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final List<Event> events = new ArrayList<>();
+
+    InputRecording(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    List<Event> getEvents() {
+        return events;
+    }
+
+    // 파일로 저장
+    void save(File file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(width + " " + height);
+            writer.newLine();
+            for (Event e : events) {
+                writer.write(e.id + " " + e.time + " " + e.x + " " + e.y + " " + e.modifiers + " "
+                        + e.button + " " + e.clickCount + " " + e.tool + " "
+                        + Integer.toHexString(e.rgb) + " " + e.strokeSize);
+                writer.newLine();
+            }
+        }
+    }
+
+    // 파일에서 불러오기
+    static InputRecording load(File file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String[] size = reader.readLine().trim().split(" ");
+            InputRecording recording = new InputRecording(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] f = line.trim().split(" ");
+                recording.events.add(new Event(Integer.parseInt(f[0]), Long.parseLong(f[1]),
+                        Integer.parseInt(f[2]), Integer.parseInt(f[3]), Integer.parseInt(f[4]),
+                        Integer.parseInt(f[5]), Integer.parseInt(f[6]), MainFrame.DrawingTool.valueOf(f[7]),
+                        Integer.parseUnsignedInt(f[8], 16), Integer.parseInt(f[9])));
+            }
+            return recording;
+        }
+    }
+
+    // 표준 녹화: 연필로 길게 낙서하기 (points개의 드래그)
+    static InputRecording scribble(int points) {
+        InputRecording recording = new InputRecording(800, 600);
+        Random random = new Random(1);
+        int x = 400;
+        int y = 300;
+        recording.add(MouseEvent.MOUSE_PRESSED, 0, x, y, MainFrame.DrawingTool.PENCIL);
+        for (int i = 1; i <= points; i++) {
+            // 화면 안에서 조금씩 움직이기
+            x = Math.max(0, Math.min(799, x + random.nextInt(21) - 10));
+            y = Math.max(0, Math.min(599, y + random.nextInt(21) - 10));
+            recording.add(MouseEvent.MOUSE_DRAGGED, i * 8L, x, y, MainFrame.DrawingTool.PENCIL);
+        }
+        recording.add(MouseEvent.MOUSE_RELEASED, (points + 1) * 8L, x, y, MainFrame.DrawingTool.PENCIL);
+        return recording;
+    }
+
+    // 표준 녹화: 사각형 count개 그리기 (하나에 드래그 10번)
+    static InputRecording rectangles(int count) {
+        InputRecording recording = new InputRecording(800, 600);
+        Random random = new Random(2);
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(700);
+            int y = random.nextInt(500);
+            recording.add(MouseEvent.MOUSE_PRESSED, time += 100, x, y, MainFrame.DrawingTool.RECTANGLE);
+            for (int step = 1; step <= 10; step++) {
+                recording.add(MouseEvent.MOUSE_DRAGGED, time += 16, x + step * 10, y + step * 10,
+                        MainFrame.DrawingTool.RECTANGLE);
+            }
+            recording.add(MouseEvent.MOUSE_RELEASED, time += 16, x + 100, y + 100,
+                    MainFrame.DrawingTool.RECTANGLE);
+        }
+        return recording;
+    }
+
+    // 왼쪽 버튼으로 검정색, 두께 3의 이벤트 추가 (표준 녹화용)
+    private void add(int id, long time, int x, int y, MainFrame.DrawingTool tool) {
+        boolean down = id != MouseEvent.MOUSE_RELEASED;
+        events.add(new Event(id, time, x, y, down ? InputEvent.BUTTON1_DOWN_MASK : 0,
+                MouseEvent.BUTTON1, 1, tool, Color.BLACK.getRGB(), 3));
+    }
+
+    // 그림 패널의 마우스 입력을 녹화하는 리스너
+    static final class Recorder extends MouseAdapter {
+        private final DrawingPanel panel;
+        private final InputRecording recording;
+        private final long startTime = System.currentTimeMillis();
+
+        Recorder(DrawingPanel panel) {
+            this.panel = panel;
+            this.recording = new InputRecording(panel.getWidth(), panel.getHeight());
+        }
+
+        InputRecording getRecording() {
+            return recording;
+        }
+
+        DrawingPanel getPanel() {
+            return panel;
+        }
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            record(e);
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            record(e);
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            record(e);
+        }
+
+        private void record(MouseEvent e) {
+            // 텍스트 도구는 대화상자가 떠서 다시 재생할 수 없으므로 녹화하지 않음
+            if (panel.getTool() == MainFrame.DrawingTool.TEXT) return;
+            recording.events.add(new Event(e.getID(), e.getWhen() - startTime, e.getX(), e.getY(),
+                    e.getModifiersEx(), e.getButton(), e.getClickCount(), panel.getTool(),
+                    panel.getColor().getRGB(), panel.getStrokeSize()));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package draw;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import javax.swing.SwingUtilities;
+
+// 녹화된 마우스 입력을 화면 없이 다시 재생해서 처리 시간을 재는 프로그램
+// 이벤트마다 MouseAdapter 처리 + paintComponent 그리기까지 걸린 시간을 잼
+// 실행: java -Djava.awt.headless=true draw.InputReplay <녹화 파일 | scribble | rectangles>
+//       [--warmup 횟수] [--max-p99 밀리초]
+// --max-p99 보다 p99가 느리면 종료 코드 1로 끝남 (배포 전 검사용)
+public class InputReplay {
+    // 재생 결과
+    static final class Result {
+        final long[] eventNanos;   // 이벤트별 처리 시간
+        final long allocatedBytes; // 재생하는 동안 할당한 메모리 (모르면 -1)
+        final long checksum;       // 최종 그림의 CRC32
+
+        Result(long[] eventNanos, long allocatedBytes, long checksum) {
+            this.eventNanos = eventNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.checksum = checksum;
+        }
+
+        // 백분위 처리 시간 (나노초)
+        long percentile(double p) {
+            long[] sorted = eventNanos.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("사용법: InputReplay <녹화 파일 | scribble | rectangles> [--warmup N] [--max-p99 ms]");
+            System.exit(2);
+        }
+        InputRecording recording;
+        if (args[0].equals("scribble")) {
+            recording = InputRecording.scribble(2000);
+        } else if (args[0].equals("rectangles")) {
+            recording = InputRecording.rectangles(500);
+        } else {
+            recording = InputRecording.load(new File(args[0]));
+        }
+        int warmup = 3;
+        double maxP99 = -1;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--warmup")) {
+                warmup = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--max-p99")) {
+                maxP99 = Double.parseDouble(args[i + 1]);
+            }
+        }
+
+        // 워밍업 (JIT 컴파일 기다리기)
+        for (int i = 0; i < warmup; i++) {
+            replay(recording);
+        }
+        Result result = replay(recording);
+
+        double p99 = result.percentile(99) / 1e6;
+        System.out.printf("이벤트 수: %d%n", result.eventNanos.length);
+        System.out.printf("p50: %.3f ms, p95: %.3f ms, p99: %.3f ms, 최대: %.3f ms%n",
+                result.percentile(50) / 1e6, result.percentile(95) / 1e6, p99, result.percentile(100) / 1e6);
+        System.out.printf("할당한 메모리: %s%n",
+                result.allocatedBytes < 0 ? "측정 불가" : (result.allocatedBytes / 1024) + " KB");
+        System.out.printf("그림 체크섬: %08x%n", result.checksum);
+
+        if (maxP99 >= 0 && p99 > maxP99) {
+            System.out.printf("실패: p99 %.3f ms 가 기준 %.3f ms 보다 느립니다%n", p99, maxP99);
+            System.exit(1);
+        }
+    }
+
+    // 새 그림 패널에 녹화를 한 번 재생 (EDT에서 실행)
+    static Result replay(InputRecording recording) throws Exception {
+        Result[] result = new Result[1];
+        SwingUtilities.invokeAndWait(() -> result[0] = replayOnCurrentThread(recording));
+        return result[0];
+    }
+
+    private static Result replayOnCurrentThread(InputRecording recording) {
+        DrawingPanel panel = new DrawingPanel();
+        panel.setSize(recording.getWidth(), recording.getHeight());
+        // 화면 대신 그릴 이미지
+        BufferedImage screen = new BufferedImage(recording.getWidth(), recording.getHeight(),
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D screenG2d = screen.createGraphics();
+        // 처음 한 번 그려서 그림 크기를 패널에 맞춤
+        panel.paint(screenG2d);
+
+        List<InputRecording.Event> events = recording.getEvents();
+        long[] eventNanos = new long[events.size()];
+        long allocatedBefore = allocatedBytes();
+        long baseTime = System.currentTimeMillis();
+
+        for (int i = 0; i < events.size(); i++) {
+            InputRecording.Event e = events.get(i);
+            // 이벤트 당시 설정으로 맞추기 (바뀔 때만)
+            if (panel.getTool() != e.tool) panel.setTool(e.tool);
+            if (panel.getColor().getRGB() != e.rgb) panel.setColor(new Color(e.rgb, true));
+            if (panel.getStrokeSize() != e.strokeSize) panel.setStrokeSize(e.strokeSize);
+
+            MouseEvent event = new MouseEvent(panel, e.id, baseTime + e.time, e.modifiers,
+                    e.x, e.y, e.clickCount, false, e.button);
+            long start = System.nanoTime();
+            panel.dispatchEvent(event);
+            panel.paint(screenG2d);
+            eventNanos[i] = System.nanoTime() - start;
+        }
+
+        long allocatedAfter = allocatedBytes();
+        screenG2d.dispose();
+        long allocated = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+        return new Result(eventNanos, allocated, checksum(panel.getImage()));
+    }
+
+    // 현재 스레드가 지금까지 할당한 바이트 수 (HotSpot이 아니면 -1)
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    // 그림 픽셀 전체의 CRC32
+    private static long checksum(BufferedImage image) {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        ByteBuffer bytes = ByteBuffer.allocate(pixels.length * 4);
+        bytes.asIntBuffer().put(pixels);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.array());
+        return crc.getValue();
+    }
+}
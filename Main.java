@@ -1,9 +1,21 @@
 package draw;
 
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
 import javax.swing.SwingUtilities;
 
 public class Main {
 	    public static void main(String[] args) {
+	    	// --exit-after-first-paint: 첫 화면이 그려질 때까지 걸린 시간을 출력하고 종료
+	    	// (StartupBenchmark와 AppCDS 아카이브 만들 때 사용)
+	    	if (Arrays.asList(args).contains("--exit-after-first-paint")) {
+	    	    DrawingPanel.setFirstPaintHook(() -> {
+	    	        long elapsed = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+	    	        System.out.println("FIRST_PAINT_MS " + elapsed);
+	    	        SwingUtilities.invokeLater(() -> System.exit(0));
+	    	    });
+	    	}
 	    	// 이벤트 디스패치 스레드에서 GUI 실행
 	        SwingUtilities.invokeLater(() -> new MainFrame());
 	    }
@@ -5,12 +5,18 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JButton;
 import javax.swing.JColorChooser;
 import javax.swing.JFileChooser;
@@ -21,18 +27,33 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
 import javax.swing.JSlider;
+import javax.swing.JTabbedPane;
 import javax.swing.JToggleButton;
+import javax.swing.KeyStroke;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 public class MainFrame extends JFrame {
-    // 그림 그리는 패널
+    // 그림 그리는 패널 (지금 선택된 문서 탭)
     private DrawingPanel drawingPanel;
+    // 문서 탭들
+    private JTabbedPane documentTabs;
+    // 모든 문서의 메모리 관리 (최대 메모리의 절반까지 사용)
+    private MemoryManager memoryManager = new MemoryManager(Runtime.getRuntime().maxMemory() / 2,
+            e -> JOptionPane.showMessageDialog(this,
+                    "메모리가 부족하지만 문서를 디스크로 내보내지 못했습니다: " + e.getMessage(),
+                    "메모리 부족", JOptionPane.WARNING_MESSAGE));
+    // 새 문서 번호
+    private int documentCount = 0;
     // 도구 선택하는 패널
     private JPanel toolPanel;
     // 색상 선택하는 패널
     private JPanel colorPanel;
+    // 그림 전체 미리보기 패널
+    private NavigatorPanel navigator;
     // 상태 표시하는 패널 (현재 어떤 도구 선택했는지)
     private JPanel statusPanel;
     
@@ -43,6 +64,7 @@ public class MainFrame extends JFrame {
     private JToggleButton ovalButton;   // 원 버튼
     private JToggleButton eraserButton; // 지우개 버튼
     private JToggleButton textButton;   // 텍스트 버튼
+    private JToggleButton selectButton; // 선택 버튼
     
     // 색상 버튼과 모두 지우기 버튼
     private JButton colorButton;  // 현재 선택된 색상 표시
@@ -57,6 +79,16 @@ public class MainFrame extends JFrame {
     private Color currentColor = Color.BLACK; // 현재 색상
     private int currentStroke = 3;            // 현재 선 두께
     
+    // 문서별 타임랩스 녹화기
+    private Map<DrawingPanel, TimelapseRecorder> timelapseRecorders = new HashMap<>();
+    
+    // 마우스 입력 녹화기 (녹화 중이 아니면 null)
+    private InputRecording.Recorder inputRecorder;
+    
+    // 함께 그리기 (이 그림판에서 연 서버, 접속 중인 연결, 없으면 null)
+    private CollaborationServer collaborationServer;
+    private CollaborationClient collaborationClient;
+    
     // 도구 버튼들을 그룹으로 묶어서 하나만 선택되게 함
     private ButtonGroup toolGroup;
     
@@ -66,7 +98,7 @@ public class MainFrame extends JFrame {
     
     // 그리기 도구 종류
     public enum DrawingTool {
-        PENCIL, LINE, RECTANGLE, OVAL, ERASER, TEXT
+        PENCIL, LINE, RECTANGLE, OVAL, ERASER, TEXT, SELECT
     }
     
     // 현재 선택된 도구 (처음에는 연필)
@@ -87,13 +119,17 @@ public class MainFrame extends JFrame {
         createMenuBar();    // 메뉴바 만들기
         createToolPanel();  // 도구 패널 만들기
         createColorPanel(); // 색상 패널 만들기
+        navigator = new NavigatorPanel(); // 미리보기 패널 만들기
         createDrawingPanel(); // 그림 그리는 패널 만들기
         createStatusPanel(); // 상태 표시 패널 만들기
         
         // 각 패널 배치하기
         add(toolPanel, BorderLayout.WEST);     // 도구 패널은 왼쪽에
-        add(colorPanel, BorderLayout.EAST);    // 색상 패널은 오른쪽에
-        add(drawingPanel, BorderLayout.CENTER); // 그림 패널은 중앙에
+        JPanel eastPanel = new JPanel(new BorderLayout());
+        eastPanel.add(colorPanel, BorderLayout.CENTER); // 색상 패널과
+        eastPanel.add(navigator, BorderLayout.SOUTH);   // 미리보기는
+        add(eastPanel, BorderLayout.EAST);     // 오른쪽에
+        add(documentTabs, BorderLayout.CENTER); // 그림 패널 탭은 중앙에
         add(statusPanel, BorderLayout.SOUTH);  // 상태 패널은 아래에
         
         // 창 보이게 하기
@@ -107,20 +143,32 @@ public class MainFrame extends JFrame {
         // 파일 메뉴 만들기
         JMenu fileMenu = new JMenu("파일");
         JMenuItem newMenuItem = new JMenuItem("새로 만들기");
+        JMenuItem newTabMenuItem = new JMenuItem("새 탭");
+        JMenuItem closeTabMenuItem = new JMenuItem("탭 닫기");
         JMenuItem openMenuItem = new JMenuItem("열기");
         JMenuItem saveMenuItem = new JMenuItem("저장");
+        JMenuItem timelapseMenuItem = new JMenuItem("타임랩스 내보내기");
+        JCheckBoxMenuItem inputRecordMenuItem = new JCheckBoxMenuItem("마우스 입력 녹화");
         JMenuItem exitMenuItem = new JMenuItem("종료");
         
         // 각 메뉴 항목에 기능 추가
         newMenuItem.addActionListener(e -> clearDrawing());   // 새로 만들기 - 모두 지우기
+        newTabMenuItem.addActionListener(e -> addDocument()); // 새 탭 - 빈 문서 추가
+        closeTabMenuItem.addActionListener(e -> closeDocument()); // 탭 닫기 - 현재 문서 닫기
         openMenuItem.addActionListener(e -> openImage());     // 열기 - 이미지 불러오기
         saveMenuItem.addActionListener(e -> saveImage());     // 저장 - 이미지 저장하기
+        timelapseMenuItem.addActionListener(e -> exportTimelapse()); // 타임랩스 - 그리는 과정 내보내기
+        inputRecordMenuItem.addActionListener(e -> toggleInputRecording(inputRecordMenuItem.isSelected()));
         exitMenuItem.addActionListener(e -> System.exit(0));  // 종료 - 프로그램 종료
         
         // 파일 메뉴에 항목 추가
         fileMenu.add(newMenuItem);
+        fileMenu.add(newTabMenuItem);
+        fileMenu.add(closeTabMenuItem);
         fileMenu.add(openMenuItem);
         fileMenu.add(saveMenuItem);
+        fileMenu.add(timelapseMenuItem);
+        fileMenu.add(inputRecordMenuItem);
         fileMenu.addSeparator();  // 구분선 추가
         fileMenu.add(exitMenuItem);
         
@@ -128,13 +176,57 @@ public class MainFrame extends JFrame {
         JMenu editMenu = new JMenu("편집");
         JMenuItem undoMenuItem = new JMenuItem("실행 취소");
         JMenuItem redoMenuItem = new JMenuItem("다시 실행");
+        JMenuItem copyMenuItem = new JMenuItem("복사");
+        JMenuItem pasteMenuItem = new JMenuItem("붙여넣기");
         
         // 실행 취소, 다시 실행 기능 추가
         undoMenuItem.addActionListener(e -> drawingPanel.undo());
         redoMenuItem.addActionListener(e -> drawingPanel.redo());
+        // 복사, 붙여넣기 기능 추가 (Ctrl+C, Ctrl+V)
+        copyMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_C, InputEvent.CTRL_DOWN_MASK));
+        pasteMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_V, InputEvent.CTRL_DOWN_MASK));
+        copyMenuItem.addActionListener(e -> drawingPanel.copySelection());
+        pasteMenuItem.addActionListener(e -> pasteImage());
         
         editMenu.add(undoMenuItem);
         editMenu.add(redoMenuItem);
+        editMenu.addSeparator();
+        editMenu.add(copyMenuItem);
+        editMenu.add(pasteMenuItem);
+        
+        // 필터 메뉴 만들기
+        JMenu filterMenu = new JMenu("필터");
+        JMenuItem blurMenuItem = new JMenuItem("흐리게");
+        JMenuItem sharpenMenuItem = new JMenuItem("선명하게");
+        JMenuItem adjustMenuItem = new JMenuItem("밝기/대비");
+        JMenuItem invertMenuItem = new JMenuItem("색 반전");
+        
+        // 흐림 필터는 작업 배열을 다시 쓰도록 한 번만 만듦
+        ImageFilter blur = ImageFilters.gaussianBlur(2);
+        ImageFilter sharpen = ImageFilters.unsharpMask(2, 1);
+        blurMenuItem.addActionListener(e -> drawingPanel.applyFilter(blur));
+        sharpenMenuItem.addActionListener(e -> drawingPanel.applyFilter(sharpen));
+        adjustMenuItem.addActionListener(e -> adjustBrightnessContrast());
+        invertMenuItem.addActionListener(e -> drawingPanel.applyFilter(ImageFilters.invert()));
+        
+        filterMenu.add(blurMenuItem);
+        filterMenu.add(sharpenMenuItem);
+        filterMenu.add(adjustMenuItem);
+        filterMenu.add(invertMenuItem);
+        
+        // 함께 그리기 메뉴 만들기
+        JMenu collaborationMenu = new JMenu("함께 그리기");
+        JMenuItem hostMenuItem = new JMenuItem("서버 열기");
+        JMenuItem joinMenuItem = new JMenuItem("서버에 접속");
+        JMenuItem leaveMenuItem = new JMenuItem("연결 끊기");
+        
+        hostMenuItem.addActionListener(e -> hostCollaboration());   // 이 그림판에서 서버를 열고 접속
+        joinMenuItem.addActionListener(e -> joinCollaboration());   // 다른 사람이 연 서버에 접속
+        leaveMenuItem.addActionListener(e -> leaveCollaboration()); // 연결 끊기 (연 서버도 닫음)
+        
+        collaborationMenu.add(hostMenuItem);
+        collaborationMenu.add(joinMenuItem);
+        collaborationMenu.add(leaveMenuItem);
         
         // 도움말 메뉴 만들기
         JMenu helpMenu = new JMenu("도움말");
@@ -150,6 +242,8 @@ public class MainFrame extends JFrame {
         // 메뉴바에 메뉴 추가
         menuBar.add(fileMenu);
         menuBar.add(editMenu);
+        menuBar.add(filterMenu);
+        menuBar.add(collaborationMenu);
         menuBar.add(helpMenu);
         
         // 프레임에 메뉴바 설정
@@ -159,8 +253,8 @@ public class MainFrame extends JFrame {
     // 도구 패널 만드는 메소드
     private void createToolPanel() {
         toolPanel = new JPanel();
-        // 그리드 레이아웃으로 버튼들 배치 (8행 1열, 간격 5픽셀)
-        toolPanel.setLayout(new GridLayout(8, 1, 5, 5));
+        // 그리드 레이아웃으로 버튼들 배치 (10행 1열, 간격 5픽셀)
+        toolPanel.setLayout(new GridLayout(10, 1, 5, 5));
         toolPanel.setBorder(BorderFactory.createTitledBorder("도구"));
         
         // 버튼 그룹 만들기 (하나만 선택되게)
@@ -173,6 +267,7 @@ public class MainFrame extends JFrame {
         ovalButton = createToolButton("원", DrawingTool.OVAL);
         eraserButton = createToolButton("지우개", DrawingTool.ERASER);
         textButton = createToolButton("텍스트", DrawingTool.TEXT);
+        selectButton = createToolButton("선택", DrawingTool.SELECT);
         
         // 모두 지우기 버튼
         clearButton = new JButton("모두 지우기");
@@ -199,6 +294,7 @@ public class MainFrame extends JFrame {
         toolPanel.add(ovalButton);
         toolPanel.add(eraserButton);
         toolPanel.add(textButton);
+        toolPanel.add(selectButton);
         toolPanel.add(clearButton);
         toolPanel.add(strokeLabel);
         toolPanel.add(strokeSlider);
@@ -272,12 +368,64 @@ public class MainFrame extends JFrame {
         return button;
     }
     
-    // 그림 패널 만드는 메소드
+    // 그림 패널 만드는 메소드 (문서 탭과 첫 문서)
     private void createDrawingPanel() {
-        drawingPanel = new DrawingPanel();
-        drawingPanel.setTool(currentTool);
-        drawingPanel.setColor(currentColor);
-        drawingPanel.setStrokeSize(currentStroke);
+        documentTabs = new JTabbedPane();
+        // 탭을 바꾸면 그 문서를 현재 그림 패널로
+        documentTabs.addChangeListener(e -> {
+            JScrollPane scrollPane = (JScrollPane) documentTabs.getSelectedComponent();
+            if (scrollPane == null) return;
+            DrawingPanel selected = (DrawingPanel) scrollPane.getViewport().getView();
+            if (selected == drawingPanel) return;
+            drawingPanel = selected;
+            drawingPanel.setTool(currentTool);
+            drawingPanel.setColor(currentColor);
+            drawingPanel.setStrokeSize(currentStroke);
+            // 디스크로 내보냈던 문서면 다시 불러옴
+            memoryManager.activate(drawingPanel);
+            navigator.setPanel(drawingPanel);
+            if (statusLabel != null) {
+                updateStatusBar();
+            }
+        });
+        addDocument();
+    }
+    
+    // 새 문서 탭 추가 메소드
+    private void addDocument() {
+        DrawingPanel panel = new DrawingPanel();
+        memoryManager.register(panel);
+        // 상태 표시줄의 메모리 사용량도 갱신
+        panel.addCanvasListener((image, dirty) -> updateStatusBar());
+        
+        // 그리는 과정 녹화 시작
+        timelapseRecorders.put(panel, new TimelapseRecorder(panel));
+        
+        // 그림이 창보다 크면 스크롤해서 봄
+        JScrollPane scrollPane = new JScrollPane(panel);
+        documentCount++;
+        documentTabs.addTab("그림 " + documentCount, scrollPane);
+        documentTabs.setSelectedComponent(scrollPane);
+    }
+    
+    // 현재 문서 탭 닫기 메소드 (마지막 탭이면 새 빈 문서를 엶)
+    private void closeDocument() {
+        DrawingPanel closing = drawingPanel;
+        if (inputRecorder != null && inputRecorder.getPanel() == closing) {
+            closing.removeMouseListener(inputRecorder);
+            closing.removeMouseMotionListener(inputRecorder);
+            inputRecorder = null;
+        }
+        if (collaborationClient != null && collaborationClient.getPanel() == closing) {
+            collaborationClient.close();
+            collaborationClient = null;
+        }
+        memoryManager.unregister(closing);
+        timelapseRecorders.remove(closing).close();
+        if (documentTabs.getTabCount() == 1) {
+            addDocument();
+        }
+        documentTabs.remove(SwingUtilities.getAncestorOfClass(JScrollPane.class, closing));
     }
     
     // 상태 패널 만드는 메소드
@@ -302,9 +450,12 @@ public class MainFrame extends JFrame {
             case OVAL: toolName = "원"; break;
             case ERASER: toolName = "지우개"; break;
             case TEXT: toolName = "텍스트"; break;
+            case SELECT: toolName = "선택"; break;
         }
         
-        statusLabel.setText("현재 도구: " + toolName + " | 선 두께: " + currentStroke);
+        statusLabel.setText("현재 도구: " + toolName + " | 선 두께: " + currentStroke
+                + " | 메모리: " + (memoryManager.getUsedBytes() >> 20) + "MB / "
+                + (memoryManager.getBudget() >> 20) + "MB");
     }
     
     // 색상 선택 대화상자 표시 메소드
@@ -317,6 +468,35 @@ public class MainFrame extends JFrame {
         }
     }
     
+    // 밝기/대비 조절 대화상자 표시 메소드
+    private void adjustBrightnessContrast() {
+        JSlider brightnessSlider = new JSlider(JSlider.HORIZONTAL, -100, 100, 0);
+        JSlider contrastSlider = new JSlider(JSlider.HORIZONTAL, -100, 100, 0);
+        
+        JPanel panel = new JPanel(new GridLayout(4, 1, 5, 5));
+        panel.add(new JLabel("밝기"));
+        panel.add(brightnessSlider);
+        panel.add(new JLabel("대비"));
+        panel.add(contrastSlider);
+        
+        int response = JOptionPane.showConfirmDialog(this, panel, "밝기/대비",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (response == JOptionPane.OK_OPTION) {
+            drawingPanel.applyFilter(ImageFilters.brightnessContrast(
+                    brightnessSlider.getValue(), contrastSlider.getValue()));
+        }
+    }
+    
+    // 붙여넣기 메소드 (붙여넣은 그림을 바로 옮길 수 있게 선택 도구로 바꿈)
+    private void pasteImage() {
+        if (drawingPanel.paste()) {
+            currentTool = DrawingTool.SELECT;
+            selectButton.setSelected(true);
+            drawingPanel.setTool(currentTool);
+            updateStatusBar();
+        }
+    }
+    
     // 그림 모두 지우기 메소드
     private void clearDrawing() {
         // 정말 지울건지 물어보기
@@ -338,6 +518,7 @@ public class MainFrame extends JFrame {
         fileChooser.setFileFilter(new FileNameExtensionFilter("PNG 이미지", "png"));
         fileChooser.setFileFilter(new FileNameExtensionFilter("JPEG 이미지", "jpg", "jpeg"));
         fileChooser.setFileFilter(new FileNameExtensionFilter("BMP 이미지", "bmp"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("그림판 문서", TiledDocument.EXTENSION));
         
         int userSelection = fileChooser.showSaveDialog(this);
         
@@ -358,6 +539,8 @@ public class MainFrame extends JFrame {
                 extension = "jpg";
             } else if (description.contains("BMP")) {
                 extension = "bmp";
+            } else if (description.contains("그림판 문서")) {
+                extension = TiledDocument.EXTENSION;
             }
             
             // 확장자가 없으면 추가
@@ -369,8 +552,13 @@ public class MainFrame extends JFrame {
             try {
                 // 현재 그림 이미지 가져오기
                 BufferedImage image = drawingPanel.getImage();
-                // 파일로 저장
-                ImageIO.write(image, extension, fileToSave);
+                if (extension.equals(TiledDocument.EXTENSION)) {
+                    // 그림판 문서로 저장 (타일별 압축)
+                    TiledDocument.write(image, fileToSave);
+                } else {
+                    // 파일로 저장 (색이 적으면 팔레트 PNG로 작게)
+                    ImageIO.write(ExportOptimizer.optimize(image, extension), extension, fileToSave);
+                }
                 // 성공 메시지
                 JOptionPane.showMessageDialog(this,
                         "이미지가 성공적으로 저장되었습니다.", "저장 성공",
@@ -384,12 +572,185 @@ public class MainFrame extends JFrame {
         }
     }
     
+    // 이 그림판에서 함께 그리기 서버를 열고 현재 문서로 접속하는 메소드
+    private void hostCollaboration() {
+        if (collaborationServer == null) {
+            try {
+                collaborationServer = CollaborationServer.start(CollaborationProtocol.DEFAULT_PORT);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(this,
+                        "서버를 열 수 없습니다: " + e.getMessage(),
+                        "함께 그리기", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+        if (connectCollaboration("localhost", collaborationServer.getPort())) {
+            JOptionPane.showMessageDialog(this,
+                    "포트 " + collaborationServer.getPort() + "에서 서버를 열었습니다.\n"
+                            + "다른 사람은 '서버에 접속'에서 이 컴퓨터 주소로 접속하세요.",
+                    "함께 그리기", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+    
+    // 다른 사람이 연 서버에 현재 문서로 접속하는 메소드
+    private void joinCollaboration() {
+        String address = JOptionPane.showInputDialog(this, "서버 주소 (주소:포트)",
+                "localhost:" + CollaborationProtocol.DEFAULT_PORT);
+        if (address == null || address.isBlank()) return;
+        String host = address.trim();
+        int port = CollaborationProtocol.DEFAULT_PORT;
+        int colon = host.lastIndexOf(':');
+        if (colon >= 0) {
+            try {
+                port = Integer.parseInt(host.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(this, "포트 번호가 잘못되었습니다.",
+                        "함께 그리기", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            host = host.substring(0, colon);
+        }
+        connectCollaboration(host, port);
+    }
+    
+    // 접속 (이미 접속 중이면 먼저 끊음), 성공하면 true
+    private boolean connectCollaboration(String host, int port) {
+        // 모두 같은 그림에서 시작하도록 접속하면 그림을 비움
+        int response = JOptionPane.showConfirmDialog(this,
+                "접속하면 현재 그림이 비워집니다. (연결을 끊은 뒤 실행 취소로 되돌릴 수 있습니다)\n계속하시겠습니까?",
+                "함께 그리기", JOptionPane.YES_NO_OPTION);
+        if (response != JOptionPane.YES_OPTION) return false;
+        if (collaborationClient != null) {
+            collaborationClient.close();
+            collaborationClient = null;
+        }
+        try {
+            collaborationClient = CollaborationClient.connect(host, port, drawingPanel, () -> {
+                // 서버가 닫혔거나 연결이 끊김
+                if (collaborationClient != null && collaborationClient.isClosed()) {
+                    collaborationClient = null;
+                }
+                JOptionPane.showMessageDialog(this, "함께 그리기 연결이 끊겼습니다.",
+                        "함께 그리기", JOptionPane.WARNING_MESSAGE);
+            });
+            return true;
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "서버에 접속할 수 없습니다: " + e.getMessage(),
+                    "함께 그리기", JOptionPane.ERROR_MESSAGE);
+            return false;
+        }
+    }
+    
+    // 함께 그리기 연결을 끊는 메소드 (이 그림판에서 연 서버도 닫음)
+    private void leaveCollaboration() {
+        if (collaborationClient != null) {
+            collaborationClient.close();
+            collaborationClient = null;
+        }
+        if (collaborationServer != null) {
+            collaborationServer.close();
+            collaborationServer = null;
+        }
+    }
+    
+    // 타임랩스 내보내는 메소드
+    private void exportTimelapse() {
+        TimelapseRecorder timelapseRecorder = timelapseRecorders.get(drawingPanel);
+        
+        // 형식 고르기
+        String[] options = {"GIF 애니메이션", "PNG 프레임 묶음"};
+        int choice = JOptionPane.showOptionDialog(this, "내보낼 형식을 선택하세요.", "타임랩스 내보내기",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (choice < 0) return;
+        TimelapseExporter.Format format = choice == 0
+                ? TimelapseExporter.Format.GIF : TimelapseExporter.Format.PNG_SEQUENCE;
+        
+        // 저장할 곳 고르기 (GIF는 파일, PNG 묶음은 폴더)
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("타임랩스 내보내기");
+        if (format == TimelapseExporter.Format.GIF) {
+            fileChooser.setFileFilter(new FileNameExtensionFilter("GIF 이미지", "gif"));
+        } else {
+            fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        }
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File target = fileChooser.getSelectedFile();
+        if (format == TimelapseExporter.Format.GIF && !target.getName().toLowerCase().endsWith(".gif")) {
+            target = new File(target.getAbsolutePath() + ".gif");
+        }
+        
+        try {
+            int deltaCount = timelapseRecorder.flush();
+            File recording = timelapseRecorder.getFile();
+            File exportTarget = target;
+            // 프레임 만들기는 오래 걸리므로 백그라운드에서
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() throws Exception {
+                    TimelapseExporter.export(recording, deltaCount, exportTarget, format, 200);
+                    return null;
+                }
+                
+                @Override
+                protected void done() {
+                    try {
+                        get();
+                        JOptionPane.showMessageDialog(MainFrame.this,
+                                "타임랩스를 내보냈습니다.", "내보내기 성공",
+                                JOptionPane.INFORMATION_MESSAGE);
+                    } catch (Exception e) {
+                        JOptionPane.showMessageDialog(MainFrame.this,
+                                "타임랩스 내보내기 중 오류가 발생했습니다: " + e.getMessage(),
+                                "내보내기 실패", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "타임랩스 내보내기 중 오류가 발생했습니다: " + e.getMessage(),
+                    "내보내기 실패", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    // 마우스 입력 녹화 시작/중지 메소드 (중지하면 파일로 저장)
+    private void toggleInputRecording(boolean start) {
+        if (start) {
+            inputRecorder = new InputRecording.Recorder(drawingPanel);
+            drawingPanel.addMouseListener(inputRecorder);
+            drawingPanel.addMouseMotionListener(inputRecorder);
+            return;
+        }
+        if (inputRecorder == null) return;
+        inputRecorder.getPanel().removeMouseListener(inputRecorder);
+        inputRecorder.getPanel().removeMouseMotionListener(inputRecorder);
+        InputRecording recording = inputRecorder.getRecording();
+        inputRecorder = null;
+        
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("입력 녹화 저장");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("입력 녹화 파일", "rec"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File file = fileChooser.getSelectedFile();
+        if (!file.getName().toLowerCase().endsWith(".rec")) {
+            file = new File(file.getAbsolutePath() + ".rec");
+        }
+        try {
+            recording.save(file);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                    "입력 녹화 저장 중 오류가 발생했습니다: " + e.getMessage(),
+                    "저장 실패", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
     // 이미지 불러오는 메소드
     private void openImage() {
         // 파일 선택 대화상자 만들기
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("이미지 열기");
-        fileChooser.setFileFilter(new FileNameExtensionFilter("이미지 파일", "png", "jpg", "jpeg", "bmp"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("이미지 파일", "png", "jpg", "jpeg", "bmp",
+                TiledDocument.EXTENSION));
         
         int userSelection = fileChooser.showOpenDialog(this);
         
@@ -397,6 +758,11 @@ public class MainFrame extends JFrame {
             // 선택한 파일
             File fileToLoad = fileChooser.getSelectedFile();
             try {
+                if (fileToLoad.getName().toLowerCase().endsWith("." + TiledDocument.EXTENSION)) {
+                    // 그림판 문서는 그림 크기만 맞춰 두고 타일은 화면에 보일 때 읽음
+                    drawingPanel.openDocument(TiledDocument.open(fileToLoad));
+                    return;
+                }
                 // 이미지 파일 읽기
                 BufferedImage loadedImage = ImageIO.read(fileToLoad);
                 if (loadedImage != null) {
@@ -0,0 +1,124 @@
+package draw;
+
+import javax.swing.SwingUtilities;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// 열린 모든 문서의 메모리(그림 + 실행 취소 기록)를 관리
+// 전체 사용량이 한도를 넘으면 가장 오래 안 본 문서부터 압축해서 디스크로 내보내고,
+// 그 문서 탭을 다시 열면 자동으로 불러옴
+final class MemoryManager {
+    // 문서들 (앞쪽일수록 오래전에 본 문서)
+    private final LinkedHashSet<DrawingPanel> documents = new LinkedHashSet<>();
+    // 사용할 수 있는 최대 메모리 (바이트)
+    private final long budget;
+    // 내보낸 문서를 저장할 임시 폴더
+    private File swapDirectory;
+    // 지금 보고 있는 문서 (내보내지 않음)
+    private DrawingPanel active;
+    // 디스크로 내보내지 못했을 때 알려줄 곳
+    private final Consumer<IOException> onSwapFailure;
+    // 한 번 실패하면 더 내보내지 않음 (그림을 바꿀 때마다 다시 실패하지 않도록)
+    private boolean swapFailed;
+    // 내보내는 중 (내보내면서 생긴 그림 변경 알림으로 다시 들어오지 않도록)
+    private boolean trimming;
+    // 지난 확인 뒤에 그림이 바뀐 문서 (쓰고 있는 문서이므로 이번에는 내보내지 않음)
+    private final Set<DrawingPanel> changed = new HashSet<>();
+
+    MemoryManager(long budget, Consumer<IOException> onSwapFailure) {
+        this.budget = budget;
+        this.onSwapFailure = onSwapFailure;
+    }
+
+    // 문서 등록 (그림이 바뀌면 사용량 확인)
+    // 알림 중에 바로 내보내면 뒤에 등록된 리스너가 비워진 그림을 받으므로,
+    // 지금 이벤트 처리가 끝난 뒤에 한 번만 확인함
+    void register(DrawingPanel panel) {
+        documents.add(panel);
+        panel.addCanvasListener((image, dirty) -> {
+            if (changed.isEmpty()) {
+                SwingUtilities.invokeLater(this::trim);
+            }
+            changed.add(panel);
+        });
+    }
+
+    // 문서 닫을 때 호출
+    void unregister(DrawingPanel panel) {
+        documents.remove(panel);
+        changed.remove(panel);
+        panel.discardSwap();
+        if (active == panel) {
+            active = null;
+        }
+    }
+
+    // 탭이 선택됐을 때 호출 (내보냈던 문서면 다시 불러옴)
+    void activate(DrawingPanel panel) {
+        active = panel;
+        try {
+            panel.swapIn();
+        } catch (UncheckedIOException e) {
+            // 다시 불러오지 못하면 그 문서를 화면에 그릴 때 알려줌
+        }
+        // 가장 최근에 본 문서로 옮기기
+        documents.remove(panel);
+        documents.add(panel);
+        trim();
+    }
+
+    // 모든 문서가 쓰는 메모리 (바이트)
+    long getUsedBytes() {
+        long used = 0;
+        for (DrawingPanel panel : documents) {
+            used += panel.getMemoryUsage();
+        }
+        return used;
+    }
+
+    long getBudget() {
+        return budget;
+    }
+
+    // 한도를 넘으면 오래 안 본 문서부터 내보내기
+    void trim() {
+        Set<DrawingPanel> inUse = new HashSet<>(changed);
+        changed.clear();
+        if (trimming || swapFailed) return;
+        long used = getUsedBytes();
+        if (used <= budget) return;
+        trimming = true;
+        try {
+            List<DrawingPanel> oldestFirst = new ArrayList<>(documents);
+            for (DrawingPanel panel : oldestFirst) {
+                if (used <= budget) break;
+                if (panel == active || inUse.contains(panel) || panel.isSwappedOut()) continue;
+                long before = panel.getMemoryUsage();
+                panel.swapOut(getSwapDirectory());
+                used -= before;
+            }
+        } catch (IOException e) {
+            // 디스크에 못 쓰면 메모리에 그대로 두고 알려줌
+            swapFailed = true;
+            onSwapFailure.accept(e);
+        } finally {
+            trimming = false;
+        }
+    }
+
+    private File getSwapDirectory() throws IOException {
+        if (swapDirectory == null) {
+            swapDirectory = Files.createTempDirectory("draw-swap").toFile();
+            swapDirectory.deleteOnExit();
+        }
+        return swapDirectory;
+    }
+}
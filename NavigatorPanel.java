@@ -0,0 +1,247 @@
+package draw;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.BorderFactory;
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.ChangeListener;
+
+// 미리보기(내비게이터) 패널
+// 그림 전체를 작게 줄인 그림과 지금 보이는 영역을 보여주고, 클릭하면 그 곳으로 이동함
+// 작업이 끝날 때마다 바뀐 영역만 모아 두었다가 UPDATE_DELAY마다 한 번씩 줄임
+// (읽을 픽셀만 EDT에서 복사하고, 평균 내는 일은 백그라운드에서)
+class NavigatorPanel extends JPanel implements DrawingPanel.CanvasListener {
+    // 미리보기 최대 크기
+    private static final int THUMBNAIL_SIZE = 150;
+    // 미리보기 갱신 간격 (밀리초)
+    private static final int UPDATE_DELAY = 200;
+    // 미리보기 한 점을 만들 때 한 방향으로 읽는 최대 픽셀 수
+    private static final int MAX_SAMPLES = 4;
+
+    // 보고 있는 그림 패널
+    private DrawingPanel panel;
+    private JViewport viewport;
+    // 줄인 그림 (EDT에서만 바꿈)
+    private BufferedImage thumbnail;
+    // 미리보기 배율 (미리보기 픽셀 / 그림 픽셀)
+    private double scale;
+    // 그림 크기 (픽셀 배열은 들고 있지 않음, 디스크로 내보낸 그림이 메모리에 남지 않도록)
+    private int canvasWidth;
+    private int canvasHeight;
+    // 아직 미리보기에 반영하지 않은 영역
+    private Rectangle pending;
+    // 그림 크기나 패널이 바뀌면 증가 (예전 작업 결과는 버림)
+    private int generation;
+
+    private final Timer updateTimer = new Timer(UPDATE_DELAY, e -> update());
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "navigator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 스크롤하면 보이는 영역 표시를 다시 그림
+    private final ChangeListener viewportListener = e -> repaint();
+
+    NavigatorPanel() {
+        setBorder(BorderFactory.createTitledBorder("미리보기"));
+        setPreferredSize(new Dimension(THUMBNAIL_SIZE + 20, THUMBNAIL_SIZE + 30));
+        updateTimer.setRepeats(false);
+
+        // 클릭하거나 끌면 그 곳이 가운데 오도록 이동
+        MouseAdapter mouseAdapter = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                jumpTo(e.getPoint());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                jumpTo(e.getPoint());
+            }
+        };
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
+    }
+
+    // 보여줄 그림 패널 바꾸기 (문서 탭을 바꿀 때)
+    void setPanel(DrawingPanel newPanel) {
+        if (panel != null) {
+            panel.removeCanvasListener(this);
+        }
+        if (viewport != null) {
+            viewport.removeChangeListener(viewportListener);
+        }
+        panel = newPanel;
+        panel.addCanvasListener(this);
+        viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, panel);
+        if (viewport != null) {
+            viewport.addChangeListener(viewportListener);
+        }
+
+        generation++;
+        thumbnail = null;
+        canvasWidth = 0;
+        canvasHeight = 0;
+        pending = null;
+        // 이미 그림이 있으면 전체를 다시 줄이기 (없으면 처음 그릴 때 알려옴)
+        if (panel.hasImage()) {
+            BufferedImage image = panel.getLoadedImage();
+            canvasChanged(image, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        }
+        repaint();
+    }
+
+    @Override
+    public void canvasChanged(BufferedImage image, Rectangle dirty) {
+        if (thumbnail == null || image.getWidth() != canvasWidth || image.getHeight() != canvasHeight) {
+            // 그림 크기가 바뀌었으면 미리보기도 새로 만들고 전체를 다시 줄임
+            // (크기가 같은 새 그림은 전체 영역을 바뀐 곳으로 알려옴)
+            canvasWidth = image.getWidth();
+            canvasHeight = image.getHeight();
+            scale = Math.min(1.0, Math.min((double) THUMBNAIL_SIZE / canvasWidth,
+                    (double) THUMBNAIL_SIZE / canvasHeight));
+            thumbnail = new BufferedImage(Math.max(1, (int) Math.round(canvasWidth * scale)),
+                    Math.max(1, (int) Math.round(canvasHeight * scale)), BufferedImage.TYPE_INT_RGB);
+            generation++;
+            pending = new Rectangle(0, 0, canvasWidth, canvasHeight);
+        } else {
+            pending = pending == null ? new Rectangle(dirty) : pending.union(dirty);
+        }
+        // 이미 예약돼 있으면 그대로 둠 (UPDATE_DELAY에 한 번만 갱신)
+        if (!updateTimer.isRunning()) {
+            updateTimer.start();
+        }
+    }
+
+    // 모아 둔 영역을 백그라운드에서 줄이고 끝나면 미리보기에 붙이기
+    private void update() {
+        if (pending == null || thumbnail == null) return;
+        // 디스크로 내보낸 그림이면 다시 불러온 뒤에 (다음 변경 알림 때) 같이 줄임
+        if (!panel.hasImage()) return;
+        BufferedImage image = panel.getLoadedImage();
+        if (image.getWidth() != canvasWidth || image.getHeight() != canvasHeight) return;
+        Rectangle region = pending;
+        pending = null;
+
+        // 바뀐 영역에 해당하는 미리보기 픽셀 범위
+        int x0 = Math.max(0, (int) Math.floor(region.x * scale));
+        int y0 = Math.max(0, (int) Math.floor(region.y * scale));
+        int x1 = Math.min(thumbnail.getWidth(), (int) Math.ceil((region.x + region.width) * scale));
+        int y1 = Math.min(thumbnail.getHeight(), (int) Math.ceil((region.y + region.height) * scale));
+        if (x0 >= x1 || y0 >= y1) return;
+
+        // 미리보기 점마다 읽을 줄과 칸만 EDT에서 복사 (그림은 EDT에서만 바뀜)
+        int[] rowStarts = new int[y1 - y0 + 1];
+        int[] columnStarts = new int[x1 - x0 + 1];
+        int[] rows = samples(y0, y1, canvasHeight, scale, rowStarts);
+        int[] columns = samples(x0, x1, canvasWidth, scale, columnStarts);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] sampled = new int[rows.length * columns.length];
+        for (int i = 0; i < rows.length; i++) {
+            int row = rows[i] * canvasWidth;
+            for (int j = 0; j < columns.length; j++) {
+                sampled[i * columns.length + j] = pixels[row + columns[j]];
+            }
+        }
+
+        BufferedImage target = thumbnail;
+        int requested = generation;
+        worker.execute(() -> {
+            int[] block = downsample(sampled, columns.length, rowStarts, columnStarts);
+            SwingUtilities.invokeLater(() -> {
+                if (requested != generation) return;
+                target.getRaster().setDataElements(x0, y0, x1 - x0, y1 - y0, block);
+                repaint();
+            });
+        });
+    }
+
+    // 미리보기 [from, to) 점마다 읽을 그림 좌표 (간격을 정수로 나누므로 한 점에 MAX_SAMPLES * 2개 미만)
+    // starts[i]부터 starts[i + 1] 전까지가 (from + i)번째 점의 좌표
+    private static int[] samples(int from, int to, int size, double scale, int[] starts) {
+        int[] positions = new int[(to - from) * MAX_SAMPLES * 2];
+        int count = 0;
+        for (int t = from; t < to; t++) {
+            starts[t - from] = count;
+            int s0 = Math.min(size - 1, (int) (t / scale));
+            int s1 = Math.max(s0 + 1, Math.min(size, (int) ((t + 1) / scale)));
+            int step = Math.max(1, (s1 - s0) / MAX_SAMPLES);
+            for (int s = s0; s < s1; s += step) {
+                positions[count++] = s;
+            }
+        }
+        starts[to - from] = count;
+        return Arrays.copyOf(positions, count);
+    }
+
+    // 미리보기 점마다 복사해 둔 픽셀들의 평균 색 구하기
+    private static int[] downsample(int[] sampled, int stride, int[] rowStarts, int[] columnStarts) {
+        int w = columnStarts.length - 1;
+        int h = rowStarts.length - 1;
+        int[] block = new int[w * h];
+        for (int ty = 0; ty < h; ty++) {
+            for (int tx = 0; tx < w; tx++) {
+                int r = 0, g = 0, b = 0, count = 0;
+                for (int i = rowStarts[ty]; i < rowStarts[ty + 1]; i++) {
+                    for (int j = columnStarts[tx]; j < columnStarts[tx + 1]; j++) {
+                        int p = sampled[i * stride + j];
+                        // 투명한 곳은 흰 배경으로 보이므로 흰색으로 섞음
+                        int a = p >>> 24;
+                        r += (((p >> 16) & 0xFF) * a + 255 * (255 - a)) / 255;
+                        g += (((p >> 8) & 0xFF) * a + 255 * (255 - a)) / 255;
+                        b += ((p & 0xFF) * a + 255 * (255 - a)) / 255;
+                        count++;
+                    }
+                }
+                block[ty * w + tx] = ((r / count) << 16) | ((g / count) << 8) | (b / count);
+            }
+        }
+        return block;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (thumbnail == null || panel == null) return;
+
+        Point origin = thumbnailOrigin();
+        g.drawImage(thumbnail, origin.x, origin.y, null);
+
+        // 지금 보이는 영역 표시
+        Rectangle visible = panel.getVisibleRect();
+        g.setColor(Color.RED);
+        g.drawRect(origin.x + (int) (visible.x * scale), origin.y + (int) (visible.y * scale),
+                Math.max(1, (int) (visible.width * scale) - 1), Math.max(1, (int) (visible.height * scale) - 1));
+    }
+
+    // 미리보기를 패널 가운데에 놓을 때 왼쪽 위 좌표
+    private Point thumbnailOrigin() {
+        return new Point((getWidth() - thumbnail.getWidth()) / 2, (getHeight() - thumbnail.getHeight()) / 2);
+    }
+
+    // 미리보기에서 누른 곳이 화면 가운데 오도록 스크롤
+    private void jumpTo(Point point) {
+        if (thumbnail == null || panel == null) return;
+        Point origin = thumbnailOrigin();
+        int x = (int) ((point.x - origin.x) / scale);
+        int y = (int) ((point.y - origin.y) / scale);
+        Rectangle visible = panel.getVisibleRect();
+        panel.scrollRectToVisible(new Rectangle(x - visible.width / 2, y - visible.height / 2,
+                visible.width, visible.height));
+        repaint();
+    }
+}
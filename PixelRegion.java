@@ -0,0 +1,91 @@
+package draw;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+// 잘라낸 픽셀 묶음 (선택 영역, 클립보드용)
+// 클립보드와 붙여넣은 선택 영역이 같은 픽셀 배열을 같이 쓰고,
+// 어느 한쪽이 픽셀을 바꾸려고 할 때만 복사함 (copy-on-write)
+final class PixelRegion {
+    // 여러 PixelRegion이 같이 쓰는 픽셀 배열과 사용 중인 개수
+    private static final class Buffer {
+        final int[] pixels;
+        int users = 1;
+
+        Buffer(int[] pixels) {
+            this.pixels = pixels;
+        }
+    }
+
+    private Buffer buffer;
+    private final int width;
+    private final int height;
+    // 화면에 그릴 때 쓰는 이미지 (픽셀 배열을 복사하지 않고 감싸기만 함)
+    private BufferedImage image;
+
+    private PixelRegion(Buffer buffer, int width, int height) {
+        this.buffer = buffer;
+        this.width = width;
+        this.height = height;
+    }
+
+    // 이미지 픽셀 배열에서 영역을 복사해서 만들기
+    static PixelRegion copyOf(int[] pixels, int stride, Rectangle region) {
+        int[] copy = new int[region.width * region.height];
+        for (int y = 0; y < region.height; y++) {
+            System.arraycopy(pixels, (region.y + y) * stride + region.x, copy, y * region.width, region.width);
+        }
+        return new PixelRegion(new Buffer(copy), region.width, region.height);
+    }
+
+    // 같은 픽셀을 공유하는 새 PixelRegion (복사하지 않음)
+    PixelRegion share() {
+        buffer.users++;
+        return new PixelRegion(buffer, width, height);
+    }
+
+    // 더 이상 안 쓸 때 호출 (공유 개수 줄이기)
+    void release() {
+        buffer.users--;
+    }
+
+    // 읽기 전용 픽셀 배열 (절대 바꾸면 안 됨)
+    int[] getPixels() {
+        return buffer.pixels;
+    }
+
+    // 바꿔도 되는 픽셀 배열 (다른 곳과 공유 중이면 이때 복사함)
+    int[] getWritablePixels() {
+        if (buffer.users > 1) {
+            buffer.users--;
+            buffer = new Buffer(buffer.pixels.clone());
+            image = null;
+        }
+        return buffer.pixels;
+    }
+
+    // 화면에 그리기 위한 이미지 (처음 한 번만 만들고 계속 재사용)
+    BufferedImage asImage() {
+        if (image == null) {
+            DirectColorModel colorModel = (DirectColorModel) ColorModel.getRGBdefault();
+            WritableRaster raster = Raster.createPackedRaster(
+                    new DataBufferInt(buffer.pixels, buffer.pixels.length),
+                    width, height, width, colorModel.getMasks(), null);
+            image = new BufferedImage(colorModel, raster, false, null);
+        }
+        return image;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+}
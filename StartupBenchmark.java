@@ -0,0 +1,56 @@
+package draw;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 시작 속도 측정 프로그램
+// 프로그램을 새 JVM으로 여러 번 실행해서 첫 화면이 그려질 때까지 걸린 시간을 출력함
+// 실행: java -cp <클래스 경로> draw.StartupBenchmark [횟수] [JVM 옵션...]
+//   예) java -cp out draw.StartupBenchmark 10 -XX:SharedArchiveFile=draw.jsa
+public class StartupBenchmark {
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        List<String> jvmOptions = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : List.of();
+        String java = ProcessHandle.current().info().command().orElse("java");
+        String classPath = System.getProperty("java.class.path");
+
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            command.addAll(jvmOptions);
+            command.add("-cp");
+            command.add(classPath);
+            command.add("draw.Main");
+            command.add("--exit-after-first-paint");
+            times[i] = runOnce(command);
+            System.out.printf("%d번째: %d ms%n", i + 1, times[i]);
+        }
+
+        Arrays.sort(times);
+        System.out.printf("첫 화면까지 - 최소: %d ms, 중간값: %d ms, 최대: %d ms%n",
+                times[0], times[runs / 2], times[runs - 1]);
+    }
+
+    // 한 번 실행해서 프로그램이 출력한 첫 화면 시간을 돌려줌
+    private static long runOnce(List<String> command) throws Exception {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long firstPaint = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("FIRST_PAINT_MS ")) {
+                    firstPaint = Long.parseLong(line.substring("FIRST_PAINT_MS ".length()).trim());
+                }
+            }
+        }
+        process.waitFor();
+        if (firstPaint < 0) {
+            throw new IllegalStateException("첫 화면 시간을 받지 못했습니다 (화면이 없는 환경인지 확인하세요)");
+        }
+        return firstPaint;
+    }
+}
@@ -0,0 +1,268 @@
+package draw;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// 그림판 전용 문서 형식 (.drw)
+// 그림을 TILE_SIZE 크기의 타일로 나눠서 타일마다 따로 압축해 저장함
+// 열 때는 파일을 메모리 매핑만 해두고, 화면에 보이는 타일만 그때그때 압축을 풂
+//
+// 파일 구조 (모두 빅엔디안)
+//   헤더: 매직(4) 버전(4) 너비(4) 높이(4) 타일 크기(4)
+//   목록: 타일마다 [위치(8) 길이(4) 색상(4)] (길이가 0이면 전체가 한 색인 타일)
+//   데이터: 압축된 타일들
+final class TiledDocument {
+    // 파일 확장자
+    static final String EXTENSION = "drw";
+
+    private static final int MAGIC = 0x44525731;  // "DRW1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int ENTRY_SIZE = 16;
+    private static final int TILE_SIZE = 256;
+    // 압축을 푼 타일을 몇 개까지 기억해 둘지
+    private static final int CACHE_TILES = 64;
+
+    private final MappedByteBuffer data;
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int columns;
+    // 압축 푼 타일 (오래 안 쓴 것부터 버림)
+    private final Map<Integer, int[]> cache = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+            return size() > CACHE_TILES;
+        }
+    };
+
+    private TiledDocument(MappedByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.capacity() < HEADER_SIZE || data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+            throw new IOException("그림판 문서 형식이 아닙니다");
+        }
+        width = data.getInt(8);
+        height = data.getInt(12);
+        tileSize = data.getInt(16);
+        if (width <= 0 || height <= 0 || tileSize <= 0) {
+            throw new IOException("문서가 손상되었습니다");
+        }
+        columns = (int) (((long) width + tileSize - 1) / tileSize);
+        // 타일 목록이 파일 안에 다 들어 있는지
+        long rows = ((long) height + tileSize - 1) / tileSize;
+        if (HEADER_SIZE + (long) columns * rows * ENTRY_SIZE > data.capacity()) {
+            throw new IOException("문서가 손상되었습니다");
+        }
+    }
+
+    // 문서 열기 (파일을 메모리 매핑만 하고 타일은 아직 읽지 않음)
+    static TiledDocument open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("2GB가 넘는 문서는 열 수 없습니다");
+            }
+            // 채널을 닫아도 매핑은 계속 쓸 수 있음
+            return new TiledDocument(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int getTileSize() {
+        return tileSize;
+    }
+
+    // 영역에 걸친 타일만 읽어서 이미지로 만들기 (문서 밖은 투명)
+    BufferedImage read(Rectangle region) throws IOException {
+        BufferedImage image = new BufferedImage(region.width, region.height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Rectangle visible = region.intersection(new Rectangle(0, 0, width, height));
+        if (visible.isEmpty()) return image;
+
+        // 필요한 타일 번호 모으기
+        List<Integer> tiles = new ArrayList<>();
+        for (int row = visible.y / tileSize; row <= (visible.y + visible.height - 1) / tileSize; row++) {
+            for (int col = visible.x / tileSize; col <= (visible.x + visible.width - 1) / tileSize; col++) {
+                tiles.add(row * columns + col);
+            }
+        }
+
+        // 타일마다 압축 풀고 영역에 복사 (타일끼리는 겹치지 않으므로 병렬로)
+        try {
+            tiles.parallelStream().forEach(tile -> {
+                int[] tilePixels;
+                try {
+                    tilePixels = tile(tile);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                Rectangle bounds = tileBounds(tile);
+                Rectangle copy = bounds.intersection(visible);
+                for (int y = copy.y; y < copy.y + copy.height; y++) {
+                    System.arraycopy(tilePixels, (y - bounds.y) * bounds.width + (copy.x - bounds.x),
+                            pixels, (y - region.y) * region.width + (copy.x - region.x), copy.width);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return image;
+    }
+
+    // 타일 하나의 픽셀 (캐시에 없으면 압축 풀기)
+    private int[] tile(int tile) throws IOException {
+        synchronized (cache) {
+            int[] cached = cache.get(tile);
+            if (cached != null) return cached;
+        }
+        Rectangle bounds = tileBounds(tile);
+        int entry = HEADER_SIZE + tile * ENTRY_SIZE;
+        long offset = data.getLong(entry);
+        int length = data.getInt(entry + 8);
+        int[] pixels = new int[bounds.width * bounds.height];
+
+        if (length == 0) {
+            // 한 색으로 채워진 타일
+            Arrays.fill(pixels, data.getInt(entry + 12));
+        } else {
+            // 목록이 가리키는 곳이 파일 안인지
+            if (offset < HEADER_SIZE || length < 0 || offset + length > data.capacity()) {
+                throw new IOException("문서가 손상되었습니다 (타일 " + tile + ")");
+            }
+            ByteBuffer compressed = data.slice((int) offset, length);
+            byte[] bytes = new byte[pixels.length * 4];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                int read = 0;
+                while (read < bytes.length) {
+                    int inflated = inflater.inflate(bytes, read, bytes.length - read);
+                    // 더 풀 데이터가 없는데 타일이 덜 찼으면 잘린 것
+                    if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException("문서가 손상되었습니다 (타일 " + tile + ")");
+                    }
+                    read += inflated;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("문서가 손상되었습니다 (타일 " + tile + ")", e);
+            } finally {
+                inflater.end();
+            }
+            ByteBuffer.wrap(bytes).asIntBuffer().get(pixels);
+        }
+        synchronized (cache) {
+            cache.put(tile, pixels);
+        }
+        return pixels;
+    }
+
+    // 타일이 차지하는 영역 (오른쪽, 아래 끝 타일은 작을 수 있음)
+    private Rectangle tileBounds(int tile) {
+        int x = (tile % columns) * tileSize;
+        int y = (tile / columns) * tileSize;
+        return new Rectangle(x, y, Math.min(tileSize, width - x), Math.min(tileSize, height - y));
+    }
+
+    // 이미지를 문서로 저장 (타일 압축은 병렬로)
+    static void write(BufferedImage image, File file) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int columns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int rows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        // 타일마다 압축 (한 색이면 압축하지 않고 색만 기록)
+        List<byte[]> compressed = IntStream.range(0, columns * rows).parallel().mapToObj(tile -> {
+            int x = (tile % columns) * TILE_SIZE;
+            int y = (tile / columns) * TILE_SIZE;
+            Rectangle bounds = new Rectangle(x, y, Math.min(TILE_SIZE, width - x), Math.min(TILE_SIZE, height - y));
+            int[] tilePixels = PixelRegion.copyOf(pixels, width, bounds).getPixels();
+            return isSolid(tilePixels) ? null : compress(tilePixels);
+        }).collect(Collectors.toList());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(TILE_SIZE);
+
+            long offset = HEADER_SIZE + (long) compressed.size() * ENTRY_SIZE;
+            for (int tile = 0; tile < compressed.size(); tile++) {
+                byte[] bytes = compressed.get(tile);
+                if (bytes == null) {
+                    int x = (tile % columns) * TILE_SIZE;
+                    int y = (tile / columns) * TILE_SIZE;
+                    out.writeLong(0);
+                    out.writeInt(0);
+                    out.writeInt(pixels[y * width + x]);
+                } else {
+                    out.writeLong(offset);
+                    out.writeInt(bytes.length);
+                    out.writeInt(0);
+                    offset += bytes.length;
+                }
+            }
+            for (byte[] bytes : compressed) {
+                if (bytes != null) out.write(bytes);
+            }
+        }
+    }
+
+    private static boolean isSolid(int[] pixels) {
+        for (int p : pixels) {
+            if (p != pixels[0]) return false;
+        }
+        return true;
+    }
+
+    private static byte[] compress(int[] pixels) {
+        ByteBuffer bytes = ByteBuffer.allocate(pixels.length * 4);
+        bytes.asIntBuffer().put(pixels);
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(bytes.array());
+            deflater.finish();
+            ByteBuffer out = ByteBuffer.allocate(pixels.length * 4 + 64);
+            while (!deflater.finished()) {
+                if (!out.hasRemaining()) {
+                    out = ByteBuffer.allocate(out.capacity() * 2).put(out.flip());
+                }
+                deflater.deflate(out);
+            }
+            out.flip();
+            byte[] result = new byte[out.remaining()];
+            out.get(result);
+            return result;
+        } finally {
+            deflater.end();
+        }
+    }
+}
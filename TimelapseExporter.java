@@ -0,0 +1,226 @@
+package draw;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+// 타임랩스 내보내기
+// 녹화 파일을 처음부터 다시 재생하면서 장면마다 한 프레임씩 만듦
+// 압축 푼 변경과 저장을 기다리는 프레임이 MEMORY_BUDGET을 넘지 않게 나눠서 처리하므로
+// 녹화가 길거나 그림이 커도 메모리는 일정함 (GIF는 프레임 하나를 계속 다시 씀)
+final class TimelapseExporter {
+    // 내보내기 형식
+    enum Format {
+        GIF,          // 움직이는 GIF 파일 하나
+        PNG_SEQUENCE  // 번호 붙은 PNG 파일들 (frame_00001.png ...)
+    }
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    // 한 번에 압축을 푸는 최대 변경 수
+    private static final int BATCH = CORES * 2;
+    // 압축 푼 변경, 저장을 기다리는 PNG 프레임이 각각 쓸 수 있는 최대 메모리 (바이트)
+    private static final long MEMORY_BUDGET = 64L << 20;
+
+    private TimelapseExporter() {
+    }
+
+    /**
+     * 녹화 파일을 프레임으로 내보내기
+     * @param recording 녹화 파일
+     * @param deltaCount 읽을 변경 수 (TimelapseRecorder.flush()가 돌려준 값)
+     * @param target GIF면 파일, PNG 묶음이면 폴더
+     * @param format 내보내기 형식
+     * @param frameDelay 프레임 사이 시간 (밀리초, GIF만 해당)
+     */
+    static void export(File recording, int deltaCount, File target, Format format, int frameDelay)
+            throws IOException {
+        if (format == Format.PNG_SEQUENCE && !target.isDirectory() && !target.mkdirs()) {
+            throw new IOException("폴더를 만들 수 없습니다: " + target);
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(recording)));
+             GifSequence gif = format == Format.GIF ? new GifSequence(target, frameDelay) : null) {
+            // 재생 중인 그림
+            int[] canvas = new int[0];
+            int width = 0;
+            int height = 0;
+            // 저장을 기다리는 PNG 프레임들과 다음 프레임 번호
+            List<BufferedImage> frames = new ArrayList<>();
+            int frameNumber = 0;
+            // GIF는 프레임을 바로 쓰므로 이미지 하나를 계속 다시 씀
+            BufferedImage gifFrame = null;
+
+            for (int done = 0; done < deltaCount; ) {
+                // 1단계: 압축을 풀었을 때 MEMORY_BUDGET을 넘지 않을 만큼 읽고 압축은 병렬로 풀기
+                List<TimelapseRecorder.Delta> deltas = new ArrayList<>();
+                long bytes = 0;
+                while (done + deltas.size() < deltaCount && deltas.size() < BATCH && bytes < MEMORY_BUDGET) {
+                    TimelapseRecorder.Delta delta = TimelapseRecorder.Delta.read(in);
+                    deltas.add(delta);
+                    bytes += (long) delta.region.width * delta.region.height * 4;
+                }
+                List<int[]> decoded;
+                try {
+                    decoded = deltas.parallelStream()
+                            .map(TimelapseRecorder.Delta::inflate)
+                            .collect(Collectors.toList());
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+
+                // 2단계: 순서대로 그림에 적용하면서 프레임 저장
+                for (int i = 0; i < deltas.size(); i++) {
+                    TimelapseRecorder.Delta delta = deltas.get(i);
+                    if (delta.imageWidth != width || delta.imageHeight != height) {
+                        // 크기가 바뀌기 전 프레임은 먼저 저장
+                        frameNumber = writePngs(frames, target, frameNumber);
+                        canvas = resize(canvas, width, height, delta.imageWidth, delta.imageHeight);
+                        width = delta.imageWidth;
+                        height = delta.imageHeight;
+                        gifFrame = null;
+                    }
+                    int[] pixels = decoded.get(i);
+                    for (int y = 0; y < delta.region.height; y++) {
+                        System.arraycopy(pixels, y * delta.region.width, canvas,
+                                (delta.region.y + y) * width + delta.region.x, delta.region.width);
+                    }
+                    decoded.set(i, null);
+
+                    if (gif != null) {
+                        if (gifFrame == null) {
+                            gifFrame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                        }
+                        copyFrame(canvas, gifFrame);
+                        gif.write(gifFrame);
+                    } else {
+                        BufferedImage frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                        copyFrame(canvas, frame);
+                        frames.add(frame);
+                        // 프레임이 크면 한 번에 조금만 모아서 저장
+                        long frameBytes = (long) width * height * 4;
+                        if (frames.size() >= Math.max(1, Math.min(CORES, MEMORY_BUDGET / frameBytes))) {
+                            frameNumber = writePngs(frames, target, frameNumber);
+                        }
+                    }
+                }
+                done += deltas.size();
+            }
+            writePngs(frames, target, frameNumber);
+        }
+    }
+
+    // 모아 둔 PNG 프레임을 병렬로 저장하고 비움 (다음 프레임 번호를 돌려줌)
+    private static int writePngs(List<BufferedImage> frames, File target, int frameNumber) throws IOException {
+        try {
+            IntStream.range(0, frames.size()).parallel().forEach(i -> {
+                File file = new File(target, String.format("frame_%05d.png", frameNumber + i + 1));
+                try {
+                    ImageIO.write(frames.get(i), "png", file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int next = frameNumber + frames.size();
+        frames.clear();
+        return next;
+    }
+
+    // 그림 크기가 바뀌면 겹치는 부분만 옮겨서 새 배열 만들기
+    private static int[] resize(int[] canvas, int oldWidth, int oldHeight, int newWidth, int newHeight) {
+        int[] resized = new int[newWidth * newHeight];
+        int copyWidth = Math.min(oldWidth, newWidth);
+        for (int y = 0; y < Math.min(oldHeight, newHeight); y++) {
+            System.arraycopy(canvas, y * oldWidth, resized, y * newWidth, copyWidth);
+        }
+        return resized;
+    }
+
+    // 재생 중인 그림을 프레임 이미지로 복사 (투명도는 버림)
+    private static void copyFrame(int[] canvas, BufferedImage frame) {
+        int[] data = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+        System.arraycopy(canvas, 0, data, 0, canvas.length);
+    }
+
+    // 움직이는 GIF 쓰기 (프레임 시간과 무한 반복 설정 포함)
+    private static final class GifSequence implements AutoCloseable {
+        private final ImageOutputStream output;
+        private final ImageWriter writer;
+        private final int frameDelay;
+        // 반복 설정은 첫 프레임에만 넣음
+        private boolean first = true;
+
+        GifSequence(File file, int frameDelay) throws IOException {
+            this.frameDelay = frameDelay;
+            writer = ImageIO.getImageWritersByFormatName("gif").next();
+            output = ImageIO.createImageOutputStream(file);
+            writer.setOutput(output);
+            writer.prepareWriteSequence(null);
+        }
+
+        void write(BufferedImage frame) throws IOException {
+            IIOMetadata metadata = writer.getDefaultImageMetadata(
+                    ImageTypeSpecifier.createFromRenderedImage(frame), null);
+            String format = metadata.getNativeMetadataFormatName();
+            IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(format);
+
+            // 프레임 시간 (GIF는 1/100초 단위)
+            IIOMetadataNode control = child(root, "GraphicControlExtension");
+            control.setAttribute("disposalMethod", "none");
+            control.setAttribute("userInputFlag", "FALSE");
+            control.setAttribute("transparentColorFlag", "FALSE");
+            control.setAttribute("delayTime", Integer.toString(frameDelay / 10));
+            control.setAttribute("transparentColorIndex", "0");
+
+            // 무한 반복 (첫 프레임에만)
+            if (first) {
+                IIOMetadataNode application = new IIOMetadataNode("ApplicationExtension");
+                application.setAttribute("applicationID", "NETSCAPE");
+                application.setAttribute("authenticationCode", "2.0");
+                application.setUserObject(new byte[] {1, 0, 0});
+                child(root, "ApplicationExtensions").appendChild(application);
+                first = false;
+            }
+
+            metadata.setFromTree(format, root);
+            writer.writeToSequence(new IIOImage(frame, null, metadata), null);
+        }
+
+        private static IIOMetadataNode child(IIOMetadataNode root, String name) {
+            for (int i = 0; i < root.getLength(); i++) {
+                if (root.item(i).getNodeName().equals(name)) {
+                    return (IIOMetadataNode) root.item(i);
+                }
+            }
+            IIOMetadataNode node = new IIOMetadataNode(name);
+            root.appendChild(node);
+            return node;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.endWriteSequence();
+            writer.dispose();
+            output.close();
+        }
+    }
+}
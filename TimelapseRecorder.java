@@ -0,0 +1,210 @@
+package draw;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// 타임랩스 녹화기
+// 작업이 끝날 때마다 바뀐 영역의 픽셀만 압축해서 임시 파일에 차례대로 기록함
+// (매번 전체 그림을 저장하지 않으므로 메모리를 거의 쓰지 않음)
+// 압축은 여러 스레드에서 동시에 하고, 파일에는 작업 순서대로 씀
+class TimelapseRecorder implements DrawingPanel.CanvasListener {
+    private final DrawingPanel panel;
+    // 녹화 파일 (시작을 빠르게 하려고 처음 기록할 때 만듦, writer 스레드에서만 사용)
+    private File file;
+    private DataOutputStream out;
+    // 파일 쓰기는 백그라운드 스레드 하나에서 순서대로
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "timelapse-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 기록한 변경 수 (EDT에서만 바뀜)
+    private int deltaCount;
+    // 처음 실패한 쓰기 (실패하면 파일이 어긋나므로 더 쓰지 않고 flush()에서 알려줌)
+    private volatile IOException failure;
+
+    // 녹화 시작 (그림 이미지가 처음 만들어질 때 전체가 바뀐 것으로 알려오므로 그게 첫 장면이 됨)
+    TimelapseRecorder(DrawingPanel panel) {
+        this.panel = panel;
+        panel.addCanvasListener(this);
+    }
+
+    // 녹화 끝내기 (문서를 닫을 때, 녹화 파일과 쓰기 스레드도 정리함)
+    void close() {
+        panel.removeCanvasListener(this);
+        // 이미 맡긴 쓰기가 끝난 다음에 닫고 지움
+        writer.execute(() -> {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+            } catch (IOException e) {
+                // 바로 지울 파일이므로 닫다가 실패해도 상관없음
+            }
+            if (file != null) {
+                file.delete();
+            }
+        });
+        writer.shutdown();
+    }
+
+    @Override
+    public void canvasChanged(BufferedImage image, Rectangle dirty) {
+        // 그림은 계속 바뀌므로 바뀐 영역만 지금 바로 복사
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] region = PixelRegion.copyOf(pixels, image.getWidth(), dirty).getPixels();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        deltaCount++;
+        // 압축은 공용 스레드 풀에서 병렬로, 쓰기는 기록 순서대로
+        CompletableFuture<byte[]> compressed = CompletableFuture.supplyAsync(() -> compress(region));
+        writer.execute(() -> write(width, height, dirty, compressed.join()));
+    }
+
+    // 변경 하나 기록: 그림 크기, 영역, 압축된 픽셀
+    private void write(int imageWidth, int imageHeight, Rectangle region, byte[] compressed) {
+        if (failure != null) return;
+        try {
+            open();
+            out.writeInt(imageWidth);
+            out.writeInt(imageHeight);
+            out.writeInt(region.x);
+            out.writeInt(region.y);
+            out.writeInt(region.width);
+            out.writeInt(region.height);
+            out.writeInt(compressed.length);
+            out.write(compressed);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private static byte[] compress(int[] pixels) {
+        ByteBuffer bytes = ByteBuffer.allocate(pixels.length * 4);
+        bytes.asIntBuffer().put(pixels);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes.array());
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, pixels.length)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // 지금까지 기록한 내용을 파일에 모두 쓰고 기록한 변경 수를 돌려줌 (EDT에서 호출)
+    int flush() throws IOException {
+        int count = deltaCount;
+        try {
+            writer.submit(() -> {
+                if (failure != null) throw failure;
+                open();
+                out.flush();
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("녹화 파일 쓰기가 중단되었습니다", e);
+        } catch (ExecutionException e) {
+            throw new IOException("녹화 파일 쓰기 실패", e.getCause());
+        }
+        return count;
+    }
+
+    // 녹화 파일이 없으면 만들기 (writer 스레드에서 호출)
+    private void open() throws IOException {
+        if (out == null) {
+            file = File.createTempFile("draw-timelapse", ".bin");
+            file.deleteOnExit();
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+    }
+
+    // 녹화 파일 (flush() 다음에 호출)
+    File getFile() {
+        return file;
+    }
+
+    // 녹화 파일에 들어 있는 변경 하나
+    static final class Delta {
+        final int imageWidth;
+        final int imageHeight;
+        final Rectangle region;
+        private final byte[] compressed;
+
+        private Delta(int imageWidth, int imageHeight, Rectangle region, byte[] compressed) {
+            this.imageWidth = imageWidth;
+            this.imageHeight = imageHeight;
+            this.region = region;
+            this.compressed = compressed;
+        }
+
+        // 녹화 파일에서 변경 하나 읽기
+        static Delta read(DataInputStream in) throws IOException {
+            int imageWidth = in.readInt();
+            int imageHeight = in.readInt();
+            Rectangle region = new Rectangle(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+            int length = in.readInt();
+            // 영역이 그림 밖이거나 길이가 이상하면 손상된 파일
+            if (imageWidth <= 0 || imageHeight <= 0 || region.x < 0 || region.y < 0 || region.width <= 0
+                    || region.height <= 0 || region.width > imageWidth - region.x
+                    || region.height > imageHeight - region.y || length < 0) {
+                throw new IOException("녹화 파일이 손상되었습니다");
+            }
+            byte[] compressed = new byte[length];
+            in.readFully(compressed);
+            return new Delta(imageWidth, imageHeight, region, compressed);
+        }
+
+        // 압축을 풀어서 영역의 픽셀 배열로 돌려줌 (여러 스레드에서 동시에 호출해도 됨)
+        // 데이터가 잘렸거나 손상됐으면 UncheckedIOException
+        int[] inflate() {
+            byte[] bytes = new byte[region.width * region.height * 4];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(compressed);
+                int length = 0;
+                while (length < bytes.length) {
+                    int inflated = inflater.inflate(bytes, length, bytes.length - length);
+                    // 더 풀 데이터가 없는데 영역이 덜 찼으면 잘린 것
+                    if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new UncheckedIOException(new IOException("녹화 파일이 손상되었습니다"));
+                    }
+                    length += inflated;
+                }
+            } catch (DataFormatException e) {
+                throw new UncheckedIOException(new IOException("녹화 파일이 손상되었습니다", e));
+            } finally {
+                inflater.end();
+            }
+            int[] pixels = new int[region.width * region.height];
+            ByteBuffer.wrap(bytes).asIntBuffer().get(pixels);
+            return pixels;
+        }
+    }
+}